@@ -0,0 +1,317 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Builds the engine objects the JMH benchmarks exercise. JMH refuses
+ * benchmark classes in the default package and the engine lives there, so
+ * the benchmarks in package bench reach these factories reflectively once
+ * per trial and then only call the returned functions.
+ */
+public final class BenchmarkFixtures {
+    private static final long MST_TIMEOUT_SECONDS = 120;
+
+    private BenchmarkFixtures() {
+    }
+
+    public static IntFunction<Object> weightCompare(int count, long seed) {
+        Random random = new Random(seed);
+        Weight[] weights = new Weight[count];
+        for (int i = 0; i < count; i++) {
+            int a = 1 + random.nextInt(1000);
+            int b = a + 1 + random.nextInt(1000);
+            weights[i] = new Weight(random.nextInt(16), a, b); // few distinct weights, so ties are common
+        }
+        int mask = Integer.highestOneBit(count) - 1;
+        return i -> weights[i & mask].compareTo(weights[(i + 1) & mask]);
+    }
+
+    public static IntFunction<Object> identifyEdge(int degree) {
+        Node node = hub(degree);
+        int[] neighbors = shuffledNeighbors(degree);
+        return i -> node.identifyEdge(neighbors[i % degree]);
+    }
+
+    public static IntFunction<Object> updateEdgeState(int degree) {
+        Node node = hub(degree);
+        int[] neighbors = shuffledNeighbors(degree);
+        EdgeState[] states = EdgeState.values();
+        return i -> {
+            node.updateEdgeState(node.identifyEdge(neighbors[i % degree]), states[i % states.length]);
+            return node;
+        };
+    }
+
+    // test() with every edge still UNKNOWN: finds the lightest one and sends Test on it
+    public static IntFunction<Object> test(int degree) {
+        Node node = hub(degree);
+        node.handleInitiate(2, 1, new Weight(1, 1, 2), NodeState.FIND);
+        return i -> {
+            node.test();
+            return node;
+        };
+    }
+
+    /**
+     * Builds a hub node whose state puts one message of the given type on
+     * a fixed code path, and returns handling that message as a Runnable.
+     * Handling REPORT and CHANGE_ROOT changes the very state that picks the
+     * path, so the benchmark asks for a fresh node before every invocation.
+     */
+    public static IntFunction<Object> handle(String type, int degree) {
+        Weight otherFragment = new Weight(Integer.MAX_VALUE - 1, 0, 1);
+        Message message;
+        switch (type) {
+            case "CONNECT":
+                message = new ConnectMessage(3, 0); // absorbed: lower level than ours
+                break;
+            case "INITIATE":
+                message = new InitiateMessage(2, 1, new Weight(1, 1, 2), NodeState.FOUND);
+                break;
+            case "TEST":
+                message = new TestMessage(3, 0, otherFragment); // answered with Accept
+                break;
+            case "ACCEPT":
+                message = new AcceptMessage(3);
+                break;
+            case "REJECT":
+                message = new RejectMessage(3);
+                break;
+            case "REPORT":
+                message = new ReportMessage(3, otherFragment); // from outside the in-branch
+                break;
+            case "CHANGE_ROOT":
+                message = new ChangeRootMessage(2);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown message type: " + type);
+        }
+        return i -> {
+            Node node = hub(degree);
+            node.handleInitiate(2, 1, new Weight(1, 1, 2), NodeState.FIND);
+            if (type.equals("CHANGE_ROOT")) {
+                node.handleAccept(3); // gives the node a best edge to move the root to
+            }
+            return (Runnable) () -> node.process(message);
+        };
+    }
+
+    // One centralized solve per invocation, on a generated graph built once
+    public static IntFunction<Object> solve(String algorithm, int vertices, int edges, long seed) {
+        Graph graph = GraphGenerator.generate("gnm", vertices, edges, seed, false);
+        return i -> MstSolver.solve(algorithm, graph);
+    }
+
+    /**
+     * Runs a complete MST computation on a random connected graph with the
+     * given transport. "local" and "simulate" run in this JVM on a fresh
+     * engine per invocation; "rmi" starts Main and "shards-rmi" and
+     * "shards-socket" start two shard JVMs through ShardLauncher, so their
+     * messages actually cross processes. Every node wakes up at once and no
+     * delay is added, so only the run itself is measured. With batching
+     * "batch" the messages go through a BatchingTransport with a 1 ms window,
+     * which the simulation cannot take since it flushes on a real timer.
+     */
+    public static IntFunction<Object> mst(String transport, String batching, int vertices, int edges, long seed)
+            throws IOException {
+        Graph graph = GraphGenerator.generate("gnm", vertices, edges, seed, false);
+        boolean batch = batching.equals("batch");
+        if (!batch && !batching.equals("none")) {
+            throw new IllegalArgumentException("Unknown batching: " + batching);
+        } else if (transport.equals("simulate")) {
+            if (batch) {
+                throw new IllegalArgumentException("The simulation cannot batch");
+            }
+            return i -> {
+                Simulation simulation = new Simulation(seed, 150);
+                try {
+                    GhsEngine engine = new GhsEngine(graph, simulation, id -> true);
+                    simulation.run(WakeupPolicy.ALL);
+                    engine.close();
+                    return complete(engine.result());
+                } catch (RemoteException | AlreadyBoundException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        } else if (transport.equals("local")) {
+            return i -> {
+                try {
+                    Transport local = batch ? new BatchingTransport(new LocalTransport(), 1, 64) : new LocalTransport();
+                    return complete(GhsEngine.run(graph, local, MST_TIMEOUT_SECONDS, TimeUnit.SECONDS));
+                } catch (RemoteException | AlreadyBoundException | InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+            };
+        }
+        File input = File.createTempFile("ghs-", ".txt");
+        input.deleteOnExit();
+        GraphWriter.writeText(graph, input.getPath());
+        if (transport.endsWith("rmi")) {
+            try {
+                LocateRegistry.createRegistry(1099);
+            } catch (IOException ignored) {
+                // a registry is already running
+            }
+        }
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        if (transport.startsWith("shards-")) {
+            command.add("ShardLauncher");
+            command.add("2");
+            command.add("--transport=" + transport.substring("shards-".length()));
+        } else {
+            command.add("Main");
+            command.add("--transport=" + transport);
+        }
+        command.add("--delay=0");
+        command.add("--wakeup=all");
+        if (batch) {
+            command.add("--batch-window=1");
+        }
+        command.add(input.getPath());
+        return i -> {
+            try {
+                Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                        .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+                if (!process.waitFor(MST_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                    process.destroyForcibly();
+                    throw new IllegalStateException("MST run did not halt within " + MST_TIMEOUT_SECONDS + " s");
+                }
+                return process.exitValue();
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    /**
+     * Encodes and decodes one message of the given type, either as the
+     * binary frame of SocketTransport ("frame") or with Java serialization
+     * as RMI does ("serialization"). The function returns the encoded size.
+     */
+    public static IntFunction<Object> codec(String type, String format) {
+        Weight weight = new Weight(7, 3, 5);
+        Message message;
+        switch (MessageType.valueOf(type)) {
+            case CONNECT:
+                message = new ConnectMessage(3, 2);
+                break;
+            case INITIATE:
+                message = new InitiateMessage(3, 2, weight, NodeState.FIND);
+                break;
+            case TEST:
+                message = new TestMessage(3, 2, weight);
+                break;
+            case REPORT:
+                message = new ReportMessage(3, weight);
+                break;
+            case ACCEPT:
+                message = new AcceptMessage(3);
+                break;
+            case REJECT:
+                message = new RejectMessage(3);
+                break;
+            default:
+                message = new ChangeRootMessage(3);
+        }
+        if (format.equals("frame")) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(64);
+            return i -> {
+                buffer.clear();
+                buffer.put((byte) message.type().ordinal()).putInt(5).putInt(message.job).putInt(message.from).putInt(message.seq);
+                message.writeTo(buffer);
+                int size = buffer.position();
+                buffer.flip();
+                MessageType decoded = MessageType.values()[buffer.get()];
+                buffer.getInt();
+                int job = buffer.getInt();
+                int from = buffer.getInt();
+                return Message.readFrom(decoded, job, from, buffer.getInt(), buffer) != null ? size : -1;
+            };
+        }
+        return i -> {
+            try {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                    out.writeObject(5);
+                    out.writeObject(message);
+                }
+                try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                    in.readObject();
+                    return in.readObject() != null ? bytes.size() : -1;
+                }
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        };
+    }
+
+    private static MstResult complete(MstResult result) {
+        if (result == null || !result.isComplete()) {
+            throw new IllegalStateException("MST run did not terminate");
+        }
+        return result;
+    }
+
+    // Node 1 connected to nodes 2..degree+1 in increasing weight, sending into the void
+    private static Node hub(int degree) {
+        List<Edge> edges = new ArrayList<>();
+        for (int i = 2; i <= degree + 1; i++) {
+            edges.add(new Edge(1, i, new Weight(i, 1, i)));
+        }
+        Node node = new Node(1, edges, new DiscardingTransport());
+        node.handleWakeup(); // joins the edge to node 2 and leaves the node FOUND at level 0
+        return node;
+    }
+
+    private static int[] shuffledNeighbors(int degree) {
+        int[] neighbors = new int[degree];
+        for (int i = 0; i < degree; i++) {
+            neighbors[i] = i + 2;
+        }
+        Random random = new Random(42);
+        for (int i = degree - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = neighbors[i];
+            neighbors[i] = neighbors[j];
+            neighbors[j] = t;
+        }
+        return neighbors;
+    }
+
+    private static final class DiscardingTransport implements Transport {
+        @Override
+        public void bind(Node node) {
+        }
+
+        @Override
+        public void ready() {
+        }
+
+        @Override
+        public void send(Integer receiverId, Message message) {
+        }
+
+        @Override
+        public void sendBatch(Integer receiverId, List<Message> messages) {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Round trip of one message through the binary frame of SocketTransport
+ * versus the Java serialization RMI uses. Each call returns the encoded
+ * size, so the bytes per message can be read off a single invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodecBenchmark {
+    @Param({"CONNECT", "INITIATE", "TEST", "ACCEPT", "REPORT"})
+    public String type;
+
+    @Param({"frame", "serialization"})
+    public String format;
+
+    private IntFunction<Object> codec;
+    private int i;
+
+    @Setup
+    public void setup() {
+        codec = Fixtures.get("codec", type, format);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return codec.apply(i++);
+    }
+}
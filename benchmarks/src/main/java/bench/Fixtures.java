@@ -0,0 +1,31 @@
+package bench;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.function.IntFunction;
+
+/**
+ * Looks up a factory in BenchmarkFixtures, which lives in the default
+ * package next to the engine and so cannot be named from here.
+ */
+final class Fixtures {
+    private Fixtures() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static IntFunction<Object> get(String name, Object... args) {
+        try {
+            Class<?> fixtures = Class.forName("BenchmarkFixtures");
+            for (Method method : fixtures.getMethods()) {
+                if (method.getName().equals(name) && method.getParameterCount() == args.length) {
+                    return (IntFunction<Object>) method.invoke(null, args);
+                }
+            }
+            throw new IllegalArgumentException("No fixture " + name + " with " + args.length + " arguments");
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
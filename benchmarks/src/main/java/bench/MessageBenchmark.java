@@ -0,0 +1,54 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of handling one GHS message of each type on a node, excluding the
+ * transport (outgoing messages are discarded).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageBenchmark {
+    @Param({"CONNECT", "INITIATE", "TEST", "ACCEPT", "REJECT", "REPORT", "CHANGE_ROOT"})
+    public String type;
+
+    @Param({"16"})
+    public int degree;
+
+    private IntFunction<Object> prepare;
+    private Runnable handle;
+
+    @Setup
+    public void setup() {
+        prepare = Fixtures.get("handle", type, degree);
+    }
+
+    // Handling a message changes the node, so every invocation gets a node in the same state
+    @Setup(Level.Invocation)
+    public void prepare() {
+        handle = (Runnable) prepare.apply(0);
+    }
+
+    @Benchmark
+    public void handle() {
+        handle.run();
+    }
+}
@@ -0,0 +1,57 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Edge-table operations of a single node, on hubs of growing degree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NodeBenchmark {
+    @Param({"4", "64", "4096"})
+    public int degree;
+
+    private IntFunction<Object> identifyEdge;
+    private IntFunction<Object> updateEdgeState;
+    private IntFunction<Object> test;
+    private int i;
+
+    @Setup
+    public void setup() {
+        identifyEdge = Fixtures.get("identifyEdge", degree);
+        updateEdgeState = Fixtures.get("updateEdgeState", degree);
+        test = Fixtures.get("test", degree);
+    }
+
+    @Benchmark
+    public Object identifyEdge() {
+        return identifyEdge.apply(i++);
+    }
+
+    @Benchmark
+    public Object updateEdgeState() {
+        return updateEdgeState.apply(i++);
+    }
+
+    @Benchmark
+    public Object test() {
+        return test.apply(i++);
+    }
+}
@@ -0,0 +1,47 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * A whole MST run on a generated graph in the discrete-event simulation,
+ * which replays the same run every time. It has no batching variant since
+ * BatchingTransport flushes on a real timer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SimulationBenchmark {
+    @Param({"100", "1000"})
+    public int vertices;
+
+    @Param({"4"})
+    public int edgesPerVertex;
+
+    private IntFunction<Object> run;
+
+    @Setup
+    public void setup() {
+        run = Fixtures.get("mst", "simulate", "none", vertices, vertices * edgesPerVertex, 42L);
+    }
+
+    @Benchmark
+    public Object mst() {
+        return run.apply(0);
+    }
+}
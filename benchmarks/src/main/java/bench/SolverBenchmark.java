@@ -0,0 +1,49 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The centralized solvers on one in-memory graph, including sorting the
+ * edges, to set against the distributed runs of MstBenchmark.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+    @Param({"kruskal", "prim", "boruvka"})
+    public String algorithm;
+
+    @Param({"100000", "1000000"})
+    public int vertices;
+
+    @Param({"4"})
+    public int edgesPerVertex;
+
+    private IntFunction<Object> solve;
+
+    @Setup
+    public void setup() {
+        solve = Fixtures.get("solve", algorithm, vertices, vertices * edgesPerVertex, 42L);
+    }
+
+    @Benchmark
+    public Object solve() {
+        return solve.apply(0);
+    }
+}
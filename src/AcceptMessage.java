@@ -0,0 +1,16 @@
+public class AcceptMessage extends Message {
+
+    public AcceptMessage(Integer from) {
+        super(from);
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.ACCEPT;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleAccept(from);
+    }
+}
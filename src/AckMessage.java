@@ -0,0 +1,25 @@
+import java.nio.ByteBuffer;
+
+public class AckMessage extends Message {
+    final Integer acked; // every message on the link up to this sequence number has been handled
+
+    public AckMessage(Integer from, Integer acked) {
+        super(from);
+        this.acked = acked;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.ACK;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleAck(from, acked);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(acked);
+    }
+}
@@ -0,0 +1,121 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Wraps another transport and merges messages for the same receiver into
+ * one batched call. A batch is sent when it reaches the size limit or when
+ * the window since its first message has passed, whichever comes first.
+ * Batches for one receiver are sent one at a time, so per-link FIFO order
+ * is kept.
+ */
+public class BatchingTransport implements Transport {
+    private final Transport delegate;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final ConcurrentMap<Integer, Outbox> outboxes = new ConcurrentHashMap<>();
+    private final LongAdder messages = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public BatchingTransport(Transport delegate, long windowMillis, int maxBatchSize) {
+        this.delegate = delegate;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    @Override
+    public void bind(Node node) throws RemoteException, AlreadyBoundException {
+        delegate.bind(node);
+    }
+
+    @Override
+    public void ready() {
+        delegate.ready();
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) {
+        messages.increment();
+        outboxes.computeIfAbsent(receiverId, Outbox::new).add(message);
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) {
+        for (Message message : messages) {
+            send(receiverId, message);
+        }
+    }
+
+    @Override
+    public void close() {
+        for (Outbox outbox : outboxes.values()) {
+            outbox.flush();
+        }
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: batched (" + windowMillis + " ms, max " + maxBatchSize + "), "
+                + messages.sum() + " messages in " + batches.sum() + " batches, " + delegate + "]";
+    }
+
+    private class Outbox {
+        private final Integer receiverId;
+        private final Object sendLock = new Object();
+        private List<Message> pending = new ArrayList<>();
+        private boolean flushScheduled = false;
+
+        Outbox(Integer receiverId) {
+            this.receiverId = receiverId;
+        }
+
+        void add(Message message) {
+            boolean full;
+            boolean schedule = false;
+            synchronized (this) {
+                pending.add(message);
+                full = pending.size() >= maxBatchSize;
+                if (!full && !flushScheduled) {
+                    flushScheduled = true;
+                    schedule = true;
+                }
+            }
+            // The sender only queues, the flush may block on a remote call
+            if (full) {
+                Scheduler.scheduleSend(this::flush, 0);
+            } else if (schedule) {
+                Scheduler.scheduleSend(this::flush, windowMillis);
+            }
+        }
+
+        void flush() {
+            // Draining under the send lock keeps batches for this receiver in order
+            synchronized (sendLock) {
+                List<Message> batch;
+                synchronized (this) {
+                    flushScheduled = false;
+                    if (pending.isEmpty()) {
+                        return;
+                    }
+                    batch = pending;
+                    pending = new ArrayList<>();
+                }
+                batches.increment();
+                try {
+                    if (batch.size() == 1) {
+                        delegate.send(receiverId, batch.get(0));
+                    } else {
+                        delegate.sendBatch(receiverId, batch);
+                    }
+                } catch (RemoteException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+public class ChangeRootMessage extends Message {
+
+    public ChangeRootMessage(Integer from) {
+        super(from);
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.CHANGE_ROOT;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleChangeRoot(from);
+    }
+}
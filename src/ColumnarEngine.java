@@ -0,0 +1,482 @@
+import java.util.Arrays;
+
+/**
+ * GHS for a whole graph in one JVM with all state in primitive arrays:
+ * per-vertex columns indexed by vertex id and per-edge columns aligned
+ * with the CSR slots of the graph, so no Node, Edge, Weight or message
+ * object exists per vertex or per message. It runs the same fragments as
+ * Node, on one thread, with every link FIFO.
+ *
+ * Edge weights are replaced by their rank in (weight, lowerId, higherId)
+ * order, which makes fragment names and best weights plain ints. The
+ * slots of every vertex are sorted by rank and twin[s] is the slot of the
+ * same edge at the other endpoint, so a message names the receiver's slot
+ * directly instead of looking up the sender.
+ */
+public class ColumnarEngine {
+    private static final byte UNKNOWN = (byte) EdgeState.UNKNOWN.ordinal();
+    private static final byte IN_MST = (byte) EdgeState.IN_MST.ordinal();
+    private static final byte NOT_IN_MST = (byte) EdgeState.NOT_IN_MST.ordinal();
+    private static final byte SLEEPING = (byte) NodeState.SLEEPING.ordinal();
+    private static final byte FIND = (byte) NodeState.FIND.ordinal();
+    private static final byte FOUND = (byte) NodeState.FOUND.ordinal();
+    private static final int INFINITE = Integer.MAX_VALUE;
+    private static final int NONE = -1;
+
+    private static final int WAKEUP = MessageType.WAKEUP.ordinal();
+    private static final int CONNECT = MessageType.CONNECT.ordinal();
+    private static final int INITIATE = MessageType.INITIATE.ordinal();
+    private static final int TEST = MessageType.TEST.ordinal();
+    private static final int ACCEPT = MessageType.ACCEPT.ordinal();
+    private static final int REJECT = MessageType.REJECT.ordinal();
+    private static final int REPORT = MessageType.REPORT.ordinal();
+    private static final int CHANGE_ROOT = MessageType.CHANGE_ROOT.ordinal();
+
+    private final int vertexCount;
+
+    // Edge columns, aligned with the CSR slots
+    private final int[] offsets;
+    private final int[] target;
+    private final int[] rank;
+    private final int[] twin;
+    private final byte[] edgeState;
+    private final byte[] deferredConnect; // level of a deferred Connect + 1, 0 if none
+    private final byte[] deferredTestLevel; // level of a deferred Test + 1, 0 if none
+    private final int[] deferredTestName;
+
+    // Vertex columns
+    private final byte[] state;
+    private final byte[] level;
+    private final int[] name;
+    private final int[] inBranch;
+    private final int[] findCount;
+    private final int[] bestEdge;
+    private final int[] bestWeight;
+    private final int[] testEdge;
+    private final int[] testCursor;
+    private final int[] deferred; // deferred Connects and Tests at the vertex
+    private final int[] deferredReport;
+
+    private final MessageRing queue = new MessageRing();
+    private final MessageRing released = new MessageRing(); // handled right after the current message
+    private final long[] counts = new long[MessageType.values().length];
+    private boolean halted = false;
+
+    public ColumnarEngine(Graph graph) {
+        int n = graph.vertexCount();
+        int slots = graph.targets.length;
+        this.vertexCount = n;
+        this.offsets = graph.offsets;
+
+        // Neighbours in increasing id order, then the twin of every slot
+        int[] byTarget = new int[slots];
+        int[] weightByTarget = new int[slots];
+        int maxDegree = 0;
+        for (int v = 1; v <= n; v++) {
+            maxDegree = Math.max(maxDegree, graph.degree(v));
+        }
+        long[] scratch = new long[maxDegree];
+        for (int v = 1; v <= n; v++) {
+            int degree = graph.degree(v);
+            for (int i = 0; i < degree; i++) {
+                int s = offsets[v] + i;
+                scratch[i] = ((long) graph.targets[s] << 32) | (graph.weights[s] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(scratch, 0, degree);
+            for (int i = 0; i < degree; i++) {
+                byTarget[offsets[v] + i] = (int) (scratch[i] >>> 32);
+                weightByTarget[offsets[v] + i] = (int) scratch[i];
+            }
+        }
+        // Visiting vertices in increasing id order meets every neighbour list in its own order
+        int[] twinByTarget = new int[slots];
+        int[] cursor = Arrays.copyOf(offsets, n + 2);
+        for (int v = 1; v <= n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                twinByTarget[s] = cursor[byTarget[s]]++;
+            }
+        }
+
+        // Rank the edges: listed in (lowerId, higherId) order, then stably sorted on weight
+        int edges = slots / 2;
+        int[] lowerSlot = new int[edges];
+        int[] keys = new int[edges];
+        int e = 0;
+        for (int v = 1; v <= n; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (byTarget[s] > v) {
+                    lowerSlot[e] = s;
+                    keys[e++] = weightByTarget[s] ^ Integer.MIN_VALUE;
+                }
+            }
+        }
+        int[] order = EdgeList.radixSort(keys, EdgeList.identity(edges));
+        int[] rankByTarget = new int[slots];
+        for (int r = 0; r < edges; r++) {
+            int s = lowerSlot[order[r]];
+            rankByTarget[s] = r;
+            rankByTarget[twinByTarget[s]] = r;
+        }
+
+        // Re-sort every vertex's slots on rank, so the test cursor walks edges in weight order
+        int[] moved = new int[slots];
+        for (int v = 1; v <= n; v++) {
+            int degree = graph.degree(v);
+            for (int i = 0; i < degree; i++) {
+                scratch[i] = ((long) rankByTarget[offsets[v] + i] << 32) | i;
+            }
+            Arrays.sort(scratch, 0, degree);
+            for (int i = 0; i < degree; i++) {
+                moved[offsets[v] + (int) scratch[i]] = offsets[v] + i;
+            }
+        }
+        this.target = new int[slots];
+        this.rank = new int[slots];
+        this.twin = new int[slots];
+        for (int s = 0; s < slots; s++) {
+            target[moved[s]] = byTarget[s];
+            rank[moved[s]] = rankByTarget[s];
+            twin[moved[s]] = moved[twinByTarget[s]];
+        }
+        this.edgeState = new byte[slots];
+        this.deferredConnect = new byte[slots];
+        this.deferredTestLevel = new byte[slots];
+        this.deferredTestName = new int[slots];
+
+        this.state = new byte[n + 1];
+        this.level = new byte[n + 1];
+        this.name = new int[n + 1];
+        this.inBranch = new int[n + 1];
+        this.findCount = new int[n + 1];
+        this.bestEdge = new int[n + 1];
+        this.bestWeight = new int[n + 1];
+        this.testEdge = new int[n + 1];
+        this.testCursor = new int[n + 1];
+        this.deferred = new int[n + 1];
+        this.deferredReport = new int[n + 1];
+        Arrays.fill(name, NONE);
+        Arrays.fill(inBranch, NONE);
+        Arrays.fill(bestEdge, NONE);
+        Arrays.fill(testEdge, NONE);
+        Arrays.fill(deferredReport, NONE);
+        for (int v = 1; v <= n; v++) {
+            testCursor[v] = offsets[v];
+        }
+    }
+
+    /**
+     * Wakes every vertex and handles messages until some vertex halts or
+     * no message is left. Returns whether the run halted.
+     */
+    public boolean run() {
+        for (int v = 1; v <= vertexCount; v++) {
+            queue.add(WAKEUP, v, NONE, 0, 0);
+        }
+        // Without any edge no core ever halts, the vertices are the whole forest
+        halted = target.length == 0;
+        while (!halted && queue.poll()) {
+            dispatch(queue.type, queue.vertex, queue.slot, queue.a, queue.b);
+            while (!halted && released.poll()) {
+                dispatch(released.type, released.vertex, released.slot, released.a, released.b);
+            }
+        }
+        return halted;
+    }
+
+    private void dispatch(int type, int v, int s, int a, int b) {
+        if (type == CONNECT) {
+            handleConnect(v, s, a);
+        } else if (type == INITIATE) {
+            handleInitiate(v, s, a >> 2, b, (byte) (a & 3));
+        } else if (type == TEST) {
+            handleTest(v, s, a, b);
+        } else if (type == ACCEPT) {
+            handleAccept(v, s);
+        } else if (type == REJECT) {
+            handleReject(v, s);
+        } else if (type == REPORT) {
+            handleReport(v, s, a);
+        } else if (type == CHANGE_ROOT) {
+            changeRoot(v);
+        } else if (type == WAKEUP && state[v] == SLEEPING) {
+            wakeup(v);
+        }
+    }
+
+    private void wakeup(int v) {
+        // Fragment II
+        if (offsets[v] == offsets[v + 1]) {
+            // An isolated vertex is a finished fragment of its own, offsets[v] is already the next vertex's slot
+            setLevel(v, 0);
+            setState(v, FOUND);
+            return;
+        }
+        int j = offsets[v]; // slots are sorted on increasing weight
+        setEdgeState(j, IN_MST);
+        setLevel(v, 0);
+        setState(v, FOUND);
+        findCount[v] = 0;
+        send(j, CONNECT, 0, 0);
+    }
+
+    private void handleConnect(int v, int j, int value) {
+        // Fragment III
+        if (state[v] == SLEEPING) {
+            wakeup(v);
+        }
+        if (value < level[v]) {
+            setEdgeState(j, IN_MST);
+            send(j, INITIATE, level[v] << 2 | state[v], name[v]);
+            if (state[v] == FIND) {
+                findCount[v]++;
+            }
+        } else if (edgeState[j] == UNKNOWN) {
+            deferredConnect[j] = (byte) (value + 1);
+            deferred[v]++;
+        } else {
+            send(j, INITIATE, (level[v] + 1) << 2 | FIND, rank[j]);
+        }
+    }
+
+    private void handleInitiate(int v, int j, int l, int f, byte s) {
+        // Fragment IV
+        setLevel(v, l);
+        name[v] = f;
+        setState(v, s);
+        inBranch[v] = j;
+        bestEdge[v] = NONE;
+        bestWeight[v] = INFINITE;
+        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+            if (i != j && edgeState[i] == IN_MST) {
+                send(i, INITIATE, l << 2 | s, f);
+                if (s == FIND) {
+                    findCount[v]++;
+                }
+            }
+        }
+        if (s == FIND) {
+            test(v);
+        }
+    }
+
+    private void test(int v) {
+        // Fragment V
+        while (testCursor[v] < offsets[v + 1] && edgeState[testCursor[v]] != UNKNOWN) {
+            testCursor[v]++;
+        }
+        if (testCursor[v] < offsets[v + 1]) {
+            testEdge[v] = testCursor[v];
+            send(testEdge[v], TEST, level[v], name[v]);
+        } else {
+            testEdge[v] = NONE;
+            report(v);
+        }
+    }
+
+    private void handleTest(int v, int j, int l, int f) {
+        // Fragment VI
+        if (state[v] == SLEEPING) {
+            wakeup(v);
+        }
+        if (l > level[v]) {
+            deferredTestLevel[j] = (byte) (l + 1);
+            deferredTestName[j] = f;
+            deferred[v]++;
+        } else if (f != name[v]) {
+            send(j, ACCEPT, 0, 0);
+        } else {
+            if (edgeState[j] == UNKNOWN) {
+                setEdgeState(j, NOT_IN_MST);
+            }
+            if (j != testEdge[v]) {
+                send(j, REJECT, 0, 0);
+            } else {
+                test(v);
+            }
+        }
+    }
+
+    private void handleAccept(int v, int j) {
+        // Fragment VIII
+        testEdge[v] = NONE;
+        if (rank[j] < bestWeight[v]) {
+            bestEdge[v] = j;
+            bestWeight[v] = rank[j];
+        }
+        report(v);
+    }
+
+    private void handleReject(int v, int j) {
+        // Fragment VII
+        if (edgeState[j] == UNKNOWN) {
+            setEdgeState(j, NOT_IN_MST);
+        }
+        test(v);
+    }
+
+    private void report(int v) {
+        // Fragment IX
+        if (findCount[v] == 0 && testEdge[v] == NONE) {
+            setState(v, FOUND);
+            send(inBranch[v], REPORT, bestWeight[v], 0);
+        }
+    }
+
+    private void handleReport(int v, int j, int w) {
+        // Fragment X
+        if (j != inBranch[v]) {
+            findCount[v]--;
+            if (w < bestWeight[v]) {
+                bestWeight[v] = w;
+                bestEdge[v] = j;
+            }
+            report(v);
+        } else if (state[v] == FIND) {
+            deferredReport[v] = w;
+        } else if (w > bestWeight[v]) {
+            changeRoot(v);
+        } else if (w == bestWeight[v] && w == INFINITE) {
+            halted = true;
+        }
+    }
+
+    private void changeRoot(int v) {
+        // Fragment XI
+        int j = bestEdge[v];
+        if (edgeState[j] == IN_MST) {
+            send(j, CHANGE_ROOT, 0, 0);
+        } else {
+            send(j, CONNECT, level[v], 0);
+            setEdgeState(j, IN_MST);
+        }
+    }
+
+    private void setLevel(int v, int l) {
+        level[v] = (byte) l;
+        if (deferred[v] == 0) {
+            return;
+        }
+        // Tests from this level or below can be answered, connects from below this level absorbed
+        for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+            if (deferredTestLevel[s] != 0 && deferredTestLevel[s] - 1 <= l) {
+                released.add(TEST, v, s, deferredTestLevel[s] - 1, deferredTestName[s]);
+                deferredTestLevel[s] = 0;
+                deferred[v]--;
+            }
+            if (deferredConnect[s] != 0 && deferredConnect[s] - 1 < l) {
+                released.add(CONNECT, v, s, deferredConnect[s] - 1, 0);
+                deferredConnect[s] = 0;
+                deferred[v]--;
+            }
+        }
+    }
+
+    private void setState(int v, byte s) {
+        state[v] = s;
+        if (s != FIND && deferredReport[v] != NONE) {
+            released.add(REPORT, v, inBranch[v], deferredReport[v], 0);
+            deferredReport[v] = NONE;
+        }
+    }
+
+    // Slots belong to one vertex, so the edge alone identifies any Connect deferred on it
+    private void setEdgeState(int j, byte s) {
+        edgeState[j] = s;
+        if (s != UNKNOWN && deferredConnect[j] != 0) {
+            released.add(CONNECT, target[twin[j]], j, deferredConnect[j] - 1, 0);
+            deferredConnect[j] = 0;
+            deferred[target[twin[j]]]--;
+        }
+    }
+
+    private void send(int j, int type, int a, int b) {
+        counts[type]++;
+        queue.add(type, target[j], twin[j], a, b);
+    }
+
+    public boolean halted() {
+        return halted;
+    }
+
+    public long count(MessageType type) {
+        return counts[type.ordinal()];
+    }
+
+    // The graph it was built from supplies the weights
+    public SpanningForest mst(Graph graph) {
+        int[] from = new int[target.length];
+        int[] to = new int[target.length];
+        int count = 0;
+        for (int v = 1; v <= vertexCount; v++) {
+            for (int s = offsets[v]; s < offsets[v + 1]; s++) {
+                if (edgeState[s] == IN_MST) {
+                    from[count] = v;
+                    to[count++] = target[s];
+                }
+            }
+        }
+        return SpanningForest.ofEndpoints(graph, from, to, count);
+    }
+
+    @Override
+    public String toString() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return "[Engine: columnar, " + vertexCount + " vertices, " + target.length / 2 + " edges, " + total
+                + " messages" + (halted ? ", halted" : "") + "]";
+    }
+
+    /**
+     * FIFO of messages as five ints each: type, receiving vertex, slot at
+     * the receiver and two arguments. The last polled message is read
+     * from the public fields.
+     */
+    private static final class MessageRing {
+        private int[] ring = new int[5 * 1024];
+        private int head = 0;
+        private int size = 0; // in ints
+        int type;
+        int vertex;
+        int slot;
+        int a;
+        int b;
+
+        void add(int type, int vertex, int slot, int a, int b) {
+            if (size + 5 > ring.length) {
+                grow();
+            }
+            int tail = (head + size) % ring.length;
+            ring[tail] = type;
+            ring[tail + 1] = vertex;
+            ring[tail + 2] = slot;
+            ring[tail + 3] = a;
+            ring[tail + 4] = b;
+            size += 5;
+        }
+
+        boolean poll() {
+            if (size == 0) {
+                return false;
+            }
+            type = ring[head];
+            vertex = ring[head + 1];
+            slot = ring[head + 2];
+            a = ring[head + 3];
+            b = ring[head + 4];
+            head = (head + 5) % ring.length;
+            size -= 5;
+            return true;
+        }
+
+        private void grow() {
+            int[] bigger = new int[ring.length * 2];
+            int first = Math.min(size, ring.length - head);
+            System.arraycopy(ring, head, bigger, 0, first);
+            System.arraycopy(ring, 0, bigger, first, size - first);
+            ring = bigger;
+            head = 0;
+        }
+    }
+}
@@ -1,13 +1,25 @@
+import java.nio.ByteBuffer;
 
-
-public class ConnectMessage {
+public class ConnectMessage extends Message {
     final Integer value;
-    final Integer from;
-    final Edge edge;
 
-    public ConnectMessage(Integer from, Integer value, Edge e) {
-        this.from = from;
+    public ConnectMessage(Integer from, Integer value) {
+        super(from);
         this.value = value;
-        this.edge = e;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.CONNECT;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleConnect(from, value);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(value);
     }
 }
@@ -0,0 +1,74 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the messages nodes send, per message type, before passing them
+ * to the wrapped transport.
+ */
+public class CountingTransport implements Transport {
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final Transport delegate;
+    private final LongAdder[] counts = new LongAdder[TYPES.length];
+
+    public CountingTransport(Transport delegate) {
+        this.delegate = delegate;
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void bind(Node node) throws RemoteException, AlreadyBoundException {
+        delegate.bind(node);
+    }
+
+    @Override
+    public void ready() {
+        delegate.ready();
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) throws RemoteException {
+        counts[message.type().ordinal()].increment();
+        delegate.send(receiverId, message);
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) throws RemoteException {
+        for (Message message : messages) {
+            counts[message.type().ordinal()].increment();
+        }
+        delegate.sendBatch(receiverId, messages);
+    }
+
+    public long count(MessageType type) {
+        return counts[type.ordinal()].sum();
+    }
+
+    public long total() {
+        long total = 0;
+        for (LongAdder count : counts) {
+            total += count.sum();
+        }
+        return total;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("[Messages:");
+        for (MessageType type : TYPES) {
+            if (!type.local()) {
+                builder.append(' ').append(type).append('=').append(count(type));
+            }
+        }
+        return builder.append(" total=").append(total()).append(", ").append(delegate).append(']').toString();
+    }
+}
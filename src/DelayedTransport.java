@@ -0,0 +1,66 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulates network latency in real time: every message is held back for
+ * a random delay below the maximum before the wrapped transport sends it.
+ * Messages on one link can overtake each other; nodes handle them in
+ * sequence order regardless.
+ */
+public class DelayedTransport implements Transport {
+    private final Transport delegate;
+    private final int maxDelayMillis;
+
+    public DelayedTransport(Transport delegate, int maxDelayMillis) {
+        this.delegate = delegate;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    @Override
+    public void bind(Node node) throws RemoteException, AlreadyBoundException {
+        delegate.bind(node);
+    }
+
+    @Override
+    public void ready() {
+        delegate.ready();
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) {
+        Scheduler.scheduleSend(() -> {
+            try {
+                delegate.send(receiverId, message);
+            } catch (RemoteException e) {
+                e.printStackTrace();
+            }
+        }, nextDelay());
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) {
+        Scheduler.scheduleSend(() -> {
+            try {
+                delegate.sendBatch(receiverId, messages);
+            } catch (RemoteException e) {
+                e.printStackTrace();
+            }
+        }, nextDelay());
+    }
+
+    private int nextDelay() {
+        return maxDelayMillis > 0 ? ThreadLocalRandom.current().nextInt(maxDelayMillis) : 0;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: delayed (< " + maxDelayMillis + " ms), " + delegate + "]";
+    }
+}
@@ -0,0 +1,326 @@
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A minimum spanning forest kept up to date while edges are inserted,
+ * deleted and reweighted, instead of solving the whole graph again.
+ * An edge that is not in the tree joins it when it is lighter than the
+ * heaviest edge on the cycle it closes. A tree edge that is removed or
+ * gets heavier is replaced by the lightest edge across the cut it leaves,
+ * found from the smaller side of the cut. Ties are broken the way Weight
+ * does, so the forest is always the one Kruskal finds on the same graph.
+ */
+public final class DynamicMst {
+    private final int vertexCount;
+    private final Map<Long, Integer> weights = new HashMap<>(); // every edge, by its (lower, higher) pair
+    private final Adjacency edges;
+    private final Adjacency tree;
+    // Search state, stamped so no search has to clear it
+    private final int[] mark;
+    private final int[] parent;
+    private final int[][] queues;
+    private int epoch;
+
+    public DynamicMst(Graph graph) {
+        this.vertexCount = graph.vertexCount();
+        this.edges = new Adjacency(vertexCount);
+        this.tree = new Adjacency(vertexCount);
+        this.mark = new int[vertexCount + 1];
+        this.parent = new int[vertexCount + 1];
+        this.queues = new int[2][vertexCount + 1];
+        for (int u = 1; u <= vertexCount; u++) {
+            edges.lists[u] = Arrays.copyOfRange(graph.targets, graph.offsets[u], graph.offsets[u + 1]);
+            edges.sizes[u] = graph.degree(u);
+            for (int s = graph.offsets[u]; s < graph.offsets[u + 1]; s++) {
+                if (u < graph.targets[s]) {
+                    weights.put(pair(u, graph.targets[s]), graph.weights[s]);
+                }
+            }
+        }
+        SpanningForest initial = MstSolver.kruskal(graph);
+        for (int i = 0; i < initial.edgeCount(); i++) {
+            long pair = initial.pair(i);
+            tree.add((int) (pair >>> 32), (int) pair);
+        }
+    }
+
+    // Each method returns whether the set of tree edges changed
+    public boolean apply(EdgeUpdate update) {
+        switch (update.kind) {
+            case INSERT:
+                return insert(update.u, update.v, update.weight);
+            case DELETE:
+                return delete(update.u, update.v);
+            default:
+                return reweight(update.u, update.v, update.weight);
+        }
+    }
+
+    public boolean insert(int u, int v, int w) {
+        Graph.checkVertex(vertexCount, u);
+        Graph.checkVertex(vertexCount, v);
+        if (weights.containsKey(pair(u, v))) {
+            return reweight(u, v, w);
+        }
+        weights.put(pair(u, v), w);
+        edges.add(u, v);
+        return offer(u, v, w);
+    }
+
+    public boolean delete(int u, int v) {
+        if (weights.remove(pair(u, v)) == null) {
+            return false;
+        }
+        edges.remove(u, v);
+        if (!tree.remove(u, v)) {
+            return false;
+        }
+        reconnect(u, v);
+        return true;
+    }
+
+    public boolean reweight(int u, int v, int w) {
+        Integer old = weights.get(pair(u, v));
+        if (old == null) {
+            return insert(u, v, w);
+        }
+        weights.put(pair(u, v), w);
+        if (tree.contains(u, v)) {
+            if (w <= old) {
+                return false;
+            }
+            // The edge itself is still a candidate for the cut it leaves
+            tree.remove(u, v);
+            reconnect(u, v);
+            return !tree.contains(u, v);
+        }
+        return w < old && offer(u, v, w);
+    }
+
+    // A non-tree edge swaps out the heaviest edge on the tree path between its ends if it is lighter
+    private boolean offer(int u, int v, int w) {
+        if (!search(u, v)) {
+            tree.add(u, v);
+            return true;
+        }
+        int heavyFrom = 0;
+        int heavyTo = 0;
+        int heavyWeight = 0;
+        for (int x = v; x != u; x = parent[x]) {
+            int p = parent[x];
+            int pw = weights.get(pair(p, x));
+            if (heavyFrom == 0 || compare(pw, p, x, heavyWeight, heavyFrom, heavyTo) > 0) {
+                heavyFrom = p;
+                heavyTo = x;
+                heavyWeight = pw;
+            }
+        }
+        if (compare(w, u, v, heavyWeight, heavyFrom, heavyTo) >= 0) {
+            return false;
+        }
+        tree.remove(heavyFrom, heavyTo);
+        tree.add(u, v);
+        return true;
+    }
+
+    // Breadth-first over the tree from u, leaving parent pointers; returns whether v was reached
+    private boolean search(int u, int v) {
+        int stamp = ++epoch;
+        int[] queue = queues[0];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = u;
+        mark[u] = stamp;
+        while (head < tail) {
+            int x = queue[head++];
+            if (x == v) {
+                return true;
+            }
+            for (int i = 0; i < tree.sizes[x]; i++) {
+                int y = tree.lists[x][i];
+                if (mark[y] != stamp) {
+                    mark[y] = stamp;
+                    parent[y] = x;
+                    queue[tail++] = y;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Grows both sides of a removed tree edge in turns until one runs out,
+     * so the work is bounded by the smaller side, then adds the lightest
+     * edge leaving that side, if there is one.
+     */
+    private void reconnect(int u, int v) {
+        epoch += 2;
+        int[] stamps = {epoch - 1, epoch};
+        int[] heads = new int[2];
+        int[] tails = {1, 1};
+        queues[0][0] = u;
+        queues[1][0] = v;
+        mark[u] = stamps[0];
+        mark[v] = stamps[1];
+        int side = 0;
+        while (true) {
+            if (heads[0] == tails[0]) {
+                side = 0;
+                break;
+            } else if (heads[1] == tails[1]) {
+                side = 1;
+                break;
+            }
+            for (int s = 0; s < 2; s++) {
+                int x = queues[s][heads[s]++];
+                for (int i = 0; i < tree.sizes[x]; i++) {
+                    int y = tree.lists[x][i];
+                    if (mark[y] != stamps[s]) {
+                        mark[y] = stamps[s];
+                        queues[s][tails[s]++] = y;
+                    }
+                }
+            }
+        }
+
+        int bestFrom = 0;
+        int bestTo = 0;
+        int bestWeight = 0;
+        for (int k = 0; k < tails[side]; k++) {
+            int x = queues[side][k];
+            for (int i = 0; i < edges.sizes[x]; i++) {
+                int y = edges.lists[x][i];
+                if (mark[y] != stamps[side]) {
+                    int w = weights.get(pair(x, y));
+                    if (bestFrom == 0 || compare(w, x, y, bestWeight, bestFrom, bestTo) < 0) {
+                        bestFrom = x;
+                        bestTo = y;
+                        bestWeight = w;
+                    }
+                }
+            }
+        }
+        if (bestFrom != 0) {
+            tree.add(bestFrom, bestTo);
+        }
+    }
+
+    public int treeEdges() {
+        int ends = 0;
+        for (int u = 1; u <= vertexCount; u++) {
+            ends += tree.sizes[u];
+        }
+        return ends / 2;
+    }
+
+    // Trees of the forest with at least one edge, a vertex on its own is not counted
+    public int trees() {
+        int covered = 0;
+        for (int u = 1; u <= vertexCount; u++) {
+            covered += tree.sizes[u] > 0 ? 1 : 0;
+        }
+        return covered - treeEdges();
+    }
+
+    public SpanningForest forest() {
+        long[] pairs = new long[vertexCount];
+        int count = 0;
+        long total = 0;
+        for (int u = 1; u <= vertexCount; u++) {
+            for (int i = 0; i < tree.sizes[u]; i++) {
+                int v = tree.lists[u][i];
+                if (u < v) {
+                    pairs[count++] = pair(u, v);
+                    total += weights.get(pair(u, v));
+                }
+            }
+        }
+        return SpanningForest.ofPairs(Arrays.copyOf(pairs, count), total);
+    }
+
+    // The graph as it is after all updates so far
+    public Graph graph() {
+        int[] from = new int[weights.size()];
+        int[] to = new int[from.length];
+        int[] weight = new int[from.length];
+        int count = 0;
+        for (Map.Entry<Long, Integer> edge : weights.entrySet()) {
+            from[count] = (int) (edge.getKey() >>> 32);
+            to[count] = (int) (long) edge.getKey();
+            weight[count++] = edge.getValue();
+        }
+        return Graph.fromEdges(vertexCount, from, to, weight, count);
+    }
+
+    private static long pair(int u, int v) {
+        return ((long) Math.min(u, v) << 32) | Math.max(u, v);
+    }
+
+    // Orders edges by (weight, lower id, higher id) like Weight
+    private static int compare(int w1, int a1, int b1, int w2, int a2, int b2) {
+        if (w1 != w2) {
+            return Integer.compare(w1, w2);
+        } else if (Math.min(a1, b1) != Math.min(a2, b2)) {
+            return Integer.compare(Math.min(a1, b1), Math.min(a2, b2));
+        }
+        return Integer.compare(Math.max(a1, b1), Math.max(a2, b2));
+    }
+
+    @Override
+    public String toString() {
+        return "[Dynamic MST: " + weights.size() + " edges, " + forest() + "]";
+    }
+
+    // Growable neighbour lists; removing an entry moves the last one into its place
+    private static final class Adjacency {
+        private static final int[] NONE = new int[0];
+
+        final int[][] lists;
+        final int[] sizes;
+
+        Adjacency(int vertexCount) {
+            this.lists = new int[vertexCount + 1][];
+            this.sizes = new int[vertexCount + 1];
+            Arrays.fill(lists, NONE);
+        }
+
+        void add(int u, int v) {
+            append(u, v);
+            append(v, u);
+        }
+
+        boolean remove(int u, int v) {
+            return drop(u, v) & drop(v, u);
+        }
+
+        boolean contains(int u, int v) {
+            return indexOf(u, v) >= 0;
+        }
+
+        private void append(int u, int v) {
+            if (sizes[u] == lists[u].length) {
+                lists[u] = Arrays.copyOf(lists[u], Math.max(4, 2 * sizes[u]));
+            }
+            lists[u][sizes[u]++] = v;
+        }
+
+        private boolean drop(int u, int v) {
+            int i = indexOf(u, v);
+            if (i < 0) {
+                return false;
+            }
+            lists[u][i] = lists[u][--sizes[u]];
+            return true;
+        }
+
+        private int indexOf(int u, int v) {
+            for (int i = 0; i < sizes[u]; i++) {
+                if (lists[u][i] == v) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+/**
+ * The undirected edges of a graph, each once as (lower, higher, weight),
+ * in the order Weight compares them: by weight, then lower id, then
+ * higher id. The position of an edge is its rank, so solvers compare
+ * edges as ints.
+ */
+public final class EdgeList {
+    final int size;
+    final int[] lower;
+    final int[] higher;
+    final int[] weight;
+
+    private EdgeList(int size, int[] lower, int[] higher, int[] weight) {
+        this.size = size;
+        this.lower = lower;
+        this.higher = higher;
+        this.weight = weight;
+    }
+
+    public static EdgeList sorted(Graph graph) {
+        int size = graph.edgeCount();
+        int[] lower = new int[size];
+        int[] higher = new int[size];
+        int[] weight = new int[size];
+        int e = 0;
+        for (int v = 1; v <= graph.vertexCount(); v++) {
+            for (int s = graph.offsets[v]; s < graph.offsets[v + 1]; s++) {
+                if (graph.targets[s] > v) {
+                    lower[e] = v;
+                    higher[e] = graph.targets[s];
+                    weight[e++] = graph.weights[s];
+                }
+            }
+        }
+        // Least significant key first, every pass is stable
+        int[] order = identity(size);
+        order = radixSort(higher, order);
+        order = radixSort(lower, order);
+        int[] signed = new int[size];
+        for (int i = 0; i < size; i++) {
+            signed[i] = weight[i] ^ Integer.MIN_VALUE;
+        }
+        order = radixSort(signed, order);
+        return new EdgeList(size, permute(lower, order), permute(higher, order), permute(weight, order));
+    }
+
+    static int[] identity(int size) {
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        return order;
+    }
+
+    // Stable LSD radix sort of the given order on the unsigned keys, 16 bits per pass
+    static int[] radixSort(int[] keys, int[] order) {
+        int[] next = new int[order.length];
+        int[] count = new int[1 << 16];
+        for (int shift = 0; shift < 32; shift += 16) {
+            Arrays.fill(count, 0);
+            for (int i : order) {
+                count[(keys[i] >>> shift) & 0xFFFF]++;
+            }
+            int sum = 0;
+            for (int d = 0; d < count.length; d++) {
+                int c = count[d];
+                count[d] = sum;
+                sum += c;
+            }
+            for (int i : order) {
+                next[count[(keys[i] >>> shift) & 0xFFFF]++] = i;
+            }
+            int[] t = order;
+            order = next;
+            next = t;
+        }
+        return order;
+    }
+
+    private static int[] permute(int[] values, int[] order) {
+        int[] permuted = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            permuted[i] = values[order[i]];
+        }
+        return permuted;
+    }
+
+    public int size() {
+        return size;
+    }
+}
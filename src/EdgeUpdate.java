@@ -0,0 +1,70 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One change to the graph: "+ u v w" inserts an edge, "- u v" deletes it
+ * and "= u v w" gives it a new weight. An update file holds one per line,
+ * lines starting with # are comments.
+ */
+public final class EdgeUpdate {
+    public enum Kind { INSERT, DELETE, REWEIGHT }
+
+    final Kind kind;
+    final int u;
+    final int v;
+    final int weight; // unused for DELETE
+
+    public EdgeUpdate(Kind kind, int u, int v, int weight) {
+        if (u == v) {
+            throw new EdgeException("Source node and target node are equal");
+        }
+        this.kind = kind;
+        this.u = u;
+        this.v = v;
+        this.weight = weight;
+    }
+
+    public static EdgeUpdate parse(String line) {
+        String[] parts = line.trim().split("\\s+");
+        int u = Integer.parseInt(parts[1]);
+        int v = Integer.parseInt(parts[2]);
+        switch (parts[0]) {
+            case "+":
+                return new EdgeUpdate(Kind.INSERT, u, v, Integer.parseInt(parts[3]));
+            case "-":
+                return new EdgeUpdate(Kind.DELETE, u, v, 0);
+            case "=":
+                return new EdgeUpdate(Kind.REWEIGHT, u, v, Integer.parseInt(parts[3]));
+            default:
+                throw new IllegalArgumentException("Unknown update: " + line);
+        }
+    }
+
+    public static List<EdgeUpdate> read(String path) throws IOException {
+        List<EdgeUpdate> updates = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.trim().isEmpty() && !line.startsWith("#")) {
+                    updates.add(parse(line));
+                }
+            }
+        }
+        return updates;
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case INSERT:
+                return "+ " + u + " " + v + " " + weight;
+            case DELETE:
+                return "- " + u + " " + v;
+            default:
+                return "= " + u + " " + v + " " + weight;
+        }
+    }
+}
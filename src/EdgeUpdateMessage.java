@@ -0,0 +1,25 @@
+public class EdgeUpdateMessage extends Message {
+    final Weight weight; // the new weight of the edge to from, null when it is deleted
+    final boolean initiator; // the endpoint that reports an update needing no repair
+    final transient Runnable then; // runs once the update is applied, null if nothing waits for it
+
+    public EdgeUpdateMessage(Integer from, Weight weight, boolean initiator, Runnable then) {
+        super(from);
+        this.weight = weight;
+        this.initiator = initiator;
+        this.then = then;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.EDGE_UPDATE;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleEdgeUpdate(from, weight, initiator);
+        if (then != null) {
+            then.run();
+        }
+    }
+}
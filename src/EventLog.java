@@ -0,0 +1,201 @@
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Binary event log in place of tracing to System.out. Every thread that
+ * logs gets its own ring of fixed-size records, so logging never takes a
+ * lock; one background thread drains the rings into the file. A full ring
+ * drops records and counts them rather than stall a node. Records are
+ * 32 bytes: timestamp (System.nanoTime), node, event type and three int
+ * arguments. The file starts with a header, see EventLogDecoder.
+ */
+public class EventLog implements EventLogMBean {
+    public static final int OFF = 0;
+    public static final int INFO = 1;
+    public static final int DEBUG = 2;
+    public static final int TRACE = 3;
+    private static final String[] LEVELS = {"off", "info", "debug", "trace"};
+
+    static final long MAGIC = 0x4748534C4F473031L; // "GHSLOG01"
+    static final int RECORD_BYTES = 32;
+    private static final int RING_RECORDS = 1 << 12;
+    private static final long IDLE_NANOS = 1_000_000;
+
+    private static volatile int level = OFF;
+    private static final List<Ring> rings = new CopyOnWriteArrayList<>();
+    private static final ThreadLocal<Ring> ring = ThreadLocal.withInitial(EventLog::newRing);
+    private static final AtomicLong written = new AtomicLong();
+    private static FileChannel channel;
+    private static Thread writer;
+    private static volatile boolean running;
+
+    // One producer, the owning thread, and one consumer, the writer
+    private static final class Ring {
+        final long[] slots = new long[RING_RECORDS * 4];
+        final AtomicLong tail = new AtomicLong();
+        final AtomicLong head = new AtomicLong();
+        volatile long dropped;
+        long droppedReported; // only touched by the writer
+
+        void offer(long timestamp, long event, long ab, long cd) {
+            long t = tail.get();
+            if (t - head.get() == RING_RECORDS) {
+                dropped++;
+                return;
+            }
+            int i = (int) (t & (RING_RECORDS - 1)) * 4;
+            slots[i] = timestamp;
+            slots[i + 1] = event;
+            slots[i + 2] = ab;
+            slots[i + 3] = cd;
+            tail.lazySet(t + 1);
+        }
+    }
+
+    private static Ring newRing() {
+        Ring created = new Ring();
+        rings.add(created);
+        return created;
+    }
+
+    public static synchronized void open(Path file, String levelName) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(3 * Long.BYTES);
+        header.putLong(MAGIC).putLong(System.nanoTime()).putLong(System.currentTimeMillis()).flip();
+        channel.write(header);
+        running = true;
+        writer = new Thread(EventLog::drainLoop, "event-log");
+        writer.setDaemon(true);
+        writer.start();
+        level = parseLevel(levelName);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new EventLog(), new ObjectName("ghs:type=EventLog"));
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Call sites check this first, so a disabled event costs one volatile read
+    static boolean enabled(EventType type) {
+        return type.verbosity <= level;
+    }
+
+    static void log(EventType type, int node, int a, int b, int c) {
+        if (type.verbosity <= level) {
+            ring.get().offer(System.nanoTime(), ((long) node << 32) | type.ordinal(),
+                    ((long) a << 32) | (b & 0xFFFFFFFFL), (long) c << 32);
+        }
+    }
+
+    private static void drainLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(RING_RECORDS * RECORD_BYTES);
+        while (running) {
+            if (drain(buffer) == 0) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            }
+        }
+    }
+
+    private static int drain(ByteBuffer buffer) {
+        int records = 0;
+        try {
+            for (Ring r : rings) {
+                long h = r.head.get();
+                long t = r.tail.get();
+                for (; h < t; h++) {
+                    int i = (int) (h & (RING_RECORDS - 1)) * 4;
+                    if (buffer.remaining() < RECORD_BYTES) {
+                        flush(buffer);
+                    }
+                    buffer.putLong(r.slots[i]).putLong(r.slots[i + 1]).putLong(r.slots[i + 2]).putLong(r.slots[i + 3]);
+                    records++;
+                }
+                r.head.lazySet(h);
+                long dropped = r.dropped;
+                if (dropped != r.droppedReported) {
+                    if (buffer.remaining() < RECORD_BYTES) {
+                        flush(buffer);
+                    }
+                    buffer.putLong(System.nanoTime()).putLong(((long) -1 << 32) | EventType.DROPPED.ordinal())
+                            .putLong((dropped - r.droppedReported) << 32).putLong(0);
+                    r.droppedReported = dropped;
+                    records++;
+                }
+            }
+            flush(buffer);
+        } catch (IOException e) {
+            e.printStackTrace();
+            running = false;
+        }
+        written.addAndGet(records);
+        return records;
+    }
+
+    private static void flush(ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // Stops the writer and drains what the rings still hold
+    public static synchronized void close() {
+        if (channel == null) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(1000);
+            drain(ByteBuffer.allocate(RING_RECORDS * RECORD_BYTES));
+            channel.close();
+        } catch (IOException | InterruptedException e) {
+            e.printStackTrace();
+        }
+        channel = null;
+    }
+
+    static int parseLevel(String name) {
+        for (int i = 0; i < LEVELS.length; i++) {
+            if (LEVELS[i].equals(name)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown log level: " + name);
+    }
+
+    @Override
+    public String getLevel() {
+        return LEVELS[level];
+    }
+
+    @Override
+    public void setLevel(String name) {
+        level = parseLevel(name);
+    }
+
+    @Override
+    public long getWritten() {
+        return written.get();
+    }
+
+    @Override
+    public long getDropped() {
+        long dropped = 0;
+        for (Ring r : rings) {
+            dropped += r.dropped;
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,83 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Turns a binary event log into text, one line per record:
+ * microseconds since the log was opened, node, event and its arguments.
+ * Records are in time order per logging thread, not across threads.
+ *
+ * Usage: EventLogDecoder <event log>
+ */
+public final class EventLogDecoder {
+    private static final EventType[] TYPES = EventType.values();
+    private static final MessageType[] MESSAGE_TYPES = MessageType.values();
+    private static final NodeState[] STATES = NodeState.values();
+
+    private EventLogDecoder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: EventLogDecoder <event log>");
+            System.exit(1);
+        }
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(args[0]), 1 << 16))) {
+            if (in.readLong() != EventLog.MAGIC) {
+                throw new IOException(args[0] + " is not an event log");
+            }
+            long start = in.readLong();
+            out.println("# opened " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS").format(new Date(in.readLong())));
+            while (true) {
+                long timestamp;
+                try {
+                    timestamp = in.readLong();
+                } catch (EOFException e) {
+                    break;
+                }
+                long event = in.readLong();
+                long ab = in.readLong();
+                long cd = in.readLong();
+                out.println(format((timestamp - start) / 1000, (int) (event >> 32), TYPES[(int) event & 0xFFFF],
+                        (int) (ab >> 32), (int) ab, (int) (cd >> 32)));
+            }
+        }
+        out.flush();
+    }
+
+    static String format(long micros, int node, EventType type, int a, int b, int c) {
+        String prefix = String.format("%12d %8d %-14s", micros, node, type);
+        switch (type) {
+            case HALT:
+                return prefix + " level " + a;
+            case DROPPED:
+                return prefix + " " + a + " records";
+            case CREATED:
+                return prefix + " " + a + " edges";
+            case STATE:
+                return prefix + " " + STATES[a] + " level " + b + " findCount " + c;
+            case REPORT_IGNORED:
+                return prefix + " from " + a;
+            case DEFER:
+            case RELEASE:
+            case RECEIVE:
+                return prefix + " " + MESSAGE_TYPES[a] + " from " + b;
+            case SEND:
+                return prefix + " " + MESSAGE_TYPES[a] + " to " + b;
+            case RETRANSMIT:
+            case LOST:
+                return prefix + " " + MESSAGE_TYPES[a] + " #" + c + " to " + b;
+            default:
+                return prefix;
+        }
+    }
+}
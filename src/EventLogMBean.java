@@ -0,0 +1,13 @@
+/**
+ * Runtime control of the event log, registered as "ghs:type=EventLog".
+ */
+public interface EventLogMBean {
+    // off, info, debug or trace
+    String getLevel();
+
+    void setLevel(String level);
+
+    long getWritten();
+
+    long getDropped();
+}
@@ -0,0 +1,24 @@
+/**
+ * Kinds of event log records, with the verbosity from which they are
+ * written. The int arguments of a record are listed with each type.
+ */
+public enum EventType {
+    HALT(EventLog.INFO),            // level
+    WAKEUP(EventLog.INFO),          // -
+    DROPPED(EventLog.INFO),         // records lost to a full ring
+    LOST(EventLog.INFO),            // message type, to, seq: no ack after the last retransmission
+    CREATED(EventLog.DEBUG),        // degree
+    STATE(EventLog.DEBUG),          // state, level, findCount
+    DEFER(EventLog.DEBUG),          // message type, from
+    RELEASE(EventLog.DEBUG),        // message type, from
+    REPORT_IGNORED(EventLog.DEBUG), // from
+    RETRANSMIT(EventLog.DEBUG),     // message type, to, seq
+    SEND(EventLog.TRACE),           // message type, to
+    RECEIVE(EventLog.TRACE);        // message type, from
+
+    final int verbosity;
+
+    EventType(int verbosity) {
+        this.verbosity = verbosity;
+    }
+}
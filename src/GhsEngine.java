@@ -0,0 +1,112 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * One GHS run in this JVM: the nodes this JVM hosts, bound to a transport
+ * and reporting to an MstResult. Nothing exits when the run terminates, so
+ * one warm JVM can run many graphs in a row, and runs with different job
+ * ids can share one transport at the same time.
+ */
+public final class GhsEngine {
+    private final List<Node> nodes;
+    private final Transport transport;
+    private final MstResult result;
+    private final int vertexCount;
+    private final long setupNanos;
+
+    // Nodes are built and bound on every core; transports keep their nodes in concurrent maps
+    public GhsEngine(Graph graph, Transport transport, IntPredicate hosts) throws RemoteException, AlreadyBoundException {
+        this(0, graph, transport, hosts);
+    }
+
+    public GhsEngine(int job, Graph graph, Transport transport, IntPredicate hosts)
+            throws RemoteException, AlreadyBoundException {
+        long start = System.nanoTime();
+        this.transport = transport;
+        this.vertexCount = graph.vertexCount();
+        int[] hosted = IntStream.rangeClosed(1, vertexCount).filter(hosts).toArray();
+        this.result = new MstResult(vertexCount, hosted.length);
+        Node[] created = new Node[hosted.length];
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        IntStream.range(0, hosted.length).parallel().forEach(i -> {
+            Node node = new Node(job, hosted[i], graph, transport);
+            node.reportTo(result);
+            created[i] = node;
+            try {
+                transport.bind(node);
+            } catch (RemoteException | AlreadyBoundException e) {
+                failure.compareAndSet(null, e);
+            }
+        });
+        if (failure.get() instanceof RemoteException) {
+            throw (RemoteException) failure.get();
+        } else if (failure.get() != null) {
+            throw (AlreadyBoundException) failure.get();
+        }
+        this.nodes = Arrays.asList(created);
+        transport.ready();
+        this.setupNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Runs the whole graph on a LocalTransport and waits for the result.
+     * Returns null if the run has not terminated within the timeout.
+     */
+    public static MstResult run(Graph graph, long timeout, TimeUnit unit)
+            throws RemoteException, AlreadyBoundException, InterruptedException {
+        return run(graph, new LocalTransport(), timeout, unit);
+    }
+
+    // The same on a transport of the caller's, which is closed afterwards
+    public static MstResult run(Graph graph, Transport transport, long timeout, TimeUnit unit)
+            throws RemoteException, AlreadyBoundException, InterruptedException {
+        GhsEngine engine = new GhsEngine(graph, transport, id -> true);
+        engine.start(WakeupPolicy.ALL);
+        boolean complete = engine.result.awaitComplete(timeout, unit);
+        engine.close();
+        return complete ? engine.result : null;
+    }
+
+    public List<Node> nodes() {
+        return nodes;
+    }
+
+    public MstResult result() {
+        return result;
+    }
+
+    public Transport transport() {
+        return transport;
+    }
+
+    // Time to build and bind the nodes
+    public long setupMillis() {
+        return setupNanos / 1_000_000;
+    }
+
+    public void start(WakeupPolicy wakeup) {
+        start(nodes, vertexCount, wakeup);
+    }
+
+    // Schedules the spontaneous wake-up of the nodes the policy wakes
+    static void start(List<Node> nodes, int vertexCount, WakeupPolicy wakeup) {
+        Random random = new Random();
+        for (Node node : nodes) {
+            long delay = wakeup.delayOf(node.getId(), vertexCount, random);
+            if (delay >= 0) {
+                Scheduler.schedule(node, delay);
+            }
+        }
+    }
+
+    public void close() {
+        transport.close();
+    }
+}
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * Undirected weighted graph in compressed-sparse-row form. Vertices are
+ * numbered 1..vertexCount; the edges of vertex v are the positions
+ * offsets[v] up to offsets[v + 1] in targets and weights. Every edge is
+ * stored once in each direction.
+ */
+public class Graph {
+    final int vertexCount;
+    final int[] offsets;
+    final int[] targets;
+    final int[] weights;
+
+    public Graph(int vertexCount, int[] offsets, int[] targets, int[] weights) {
+        this.vertexCount = vertexCount;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.weights = weights;
+    }
+
+    /**
+     * Builds a graph from a list of undirected edges (lo[i], hi[i], w[i]).
+     * Edges may appear in either orientation and more than once; for
+     * duplicates the lowest weight is kept.
+     */
+    public static Graph fromEdges(int vertexCount, int[] from, int[] to, int[] weight, int count) {
+        // Bucket the canonical (lower, higher) pairs by their lower endpoint
+        int[] bucketStart = new int[vertexCount + 2];
+        for (int i = 0; i < count; i++) {
+            checkVertex(vertexCount, from[i]);
+            checkVertex(vertexCount, to[i]);
+            if (from[i] == to[i]) {
+                throw new EdgeException("Source node and target node are equal");
+            }
+            bucketStart[Math.min(from[i], to[i]) + 1]++;
+        }
+        for (int v = 1; v <= vertexCount + 1; v++) {
+            bucketStart[v] += bucketStart[v - 1];
+        }
+        long[] bucketed = new long[count]; // higher endpoint in the upper half, weight (sign flipped) in the lower half
+        int[] fill = bucketStart.clone();
+        for (int i = 0; i < count; i++) {
+            int low = Math.min(from[i], to[i]);
+            int high = Math.max(from[i], to[i]);
+            bucketed[fill[low]++] = ((long) high << 32) | ((weight[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+
+        // Sort every bucket and drop mirrored or repeated edges
+        int[] degree = new int[vertexCount + 2];
+        int[] keptLow = new int[count];
+        int[] keptHigh = new int[count];
+        int[] keptWeight = new int[count];
+        int unique = 0;
+        for (int v = 1; v <= vertexCount; v++) {
+            Arrays.sort(bucketed, bucketStart[v], bucketStart[v + 1]);
+            int previous = -1;
+            for (int i = bucketStart[v]; i < bucketStart[v + 1]; i++) {
+                int high = (int) (bucketed[i] >>> 32);
+                if (high != previous) {
+                    keptLow[unique] = v;
+                    keptHigh[unique] = high;
+                    keptWeight[unique] = (int) bucketed[i] ^ Integer.MIN_VALUE;
+                    unique++;
+                    degree[v]++;
+                    degree[high]++;
+                    previous = high;
+                }
+            }
+        }
+
+        int[] offsets = new int[vertexCount + 2];
+        for (int v = 1; v <= vertexCount + 1; v++) {
+            offsets[v] = offsets[v - 1] + degree[v - 1];
+        }
+        int[] targets = new int[2 * unique];
+        int[] weights = new int[2 * unique];
+        fill = offsets.clone();
+        for (int i = 0; i < unique; i++) {
+            int low = keptLow[i];
+            int high = keptHigh[i];
+            targets[fill[low]] = high;
+            weights[fill[low]++] = keptWeight[i];
+            targets[fill[high]] = low;
+            weights[fill[high]++] = keptWeight[i];
+        }
+        return new Graph(vertexCount, offsets, targets, weights);
+    }
+
+    static void checkVertex(int vertexCount, int v) {
+        if (v < 1 || v > vertexCount) {
+            throw new EdgeException("Node " + v + " is not in the graph of " + vertexCount + " nodes");
+        }
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int edgeCount() {
+        return targets.length / 2;
+    }
+
+    public int degree(int v) {
+        return offsets[v + 1] - offsets[v];
+    }
+
+    // The edges of one vertex as the Edge objects a Node works with
+    public Edge[] edgesOf(int v) {
+        Edge[] edges = new Edge[degree(v)];
+        for (int i = offsets[v]; i < offsets[v + 1]; i++) {
+            int u = targets[i];
+            edges[i - offsets[v]] = new Edge(v, u, new Weight(weights[i], Math.min(u, v), Math.max(u, v)));
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,239 @@
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Generates connected random graphs from a seed:
+ *
+ * gnm       - m edges between uniformly random pairs of nodes
+ * grid      - a rows x columns lattice of n nodes (m is ignored)
+ * geometric - nodes at random points in the unit square, joined when
+ *             closer than the radius that gives about m edges
+ * powerlaw  - preferential attachment, about m / n edges per new node
+ *
+ * Weights are either all distinct or drawn from a small range so that
+ * many edges tie and the id tie-break in Weight decides. Components left
+ * over by the random process are joined with extra edges.
+ *
+ * Usage: GraphGenerator <type> <n> <m> [--seed=<seed>] [--weights=distinct|tied] [--binary] <output file>
+ */
+public final class GraphGenerator {
+    private static final int TIED_WEIGHT_RANGE = 16;
+
+    private GraphGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        long seed = 1;
+        boolean tied = false;
+        boolean binary = false;
+        String[] positional = new String[4];
+        int count = 0;
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--weights=")) {
+                tied = arg.substring("--weights=".length()).equals("tied");
+            } else if (arg.equals("--binary")) {
+                binary = true;
+            } else if (count < positional.length) {
+                positional[count++] = arg;
+            }
+        }
+        if (count < 4) {
+            System.err.println("Usage: GraphGenerator <gnm|grid|geometric|powerlaw> <n> <m> [--seed=<seed>] "
+                    + "[--weights=distinct|tied] [--binary] <output file>");
+            System.exit(1);
+        }
+        Graph graph = generate(positional[0], Integer.parseInt(positional[1]), Long.parseLong(positional[2]), seed, tied);
+        if (binary) {
+            GraphWriter.writeBinary(graph, positional[3]);
+        } else {
+            GraphWriter.writeText(graph, positional[3]);
+        }
+        System.out.println("Wrote " + graph.vertexCount() + " nodes and " + graph.edgeCount() + " edges to " + positional[3]);
+    }
+
+    public static Graph generate(String type, int n, long m, long seed, boolean tiedWeights) {
+        Random random = new Random(seed);
+        EdgeList edges = new EdgeList();
+        switch (type) {
+            case "gnm":
+                gnm(n, m, random, edges);
+                break;
+            case "grid":
+                grid(n, edges);
+                break;
+            case "geometric":
+                geometric(n, m, random, edges);
+                break;
+            case "powerlaw":
+                powerLaw(n, m, random, edges);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown graph type: " + type);
+        }
+        connect(n, random, edges);
+        assignWeights(random, edges, tiedWeights);
+        return Graph.fromEdges(n, edges.from, edges.to, edges.weight, edges.size);
+    }
+
+    private static void gnm(int n, long m, Random random, EdgeList edges) {
+        while (edges.size < m) {
+            int u = 1 + random.nextInt(n);
+            int v = 1 + random.nextInt(n);
+            if (u != v) {
+                edges.add(u, v);
+            }
+        }
+    }
+
+    private static void grid(int n, EdgeList edges) {
+        int columns = (int) Math.ceil(Math.sqrt(n));
+        for (int v = 1; v <= n; v++) {
+            int column = (v - 1) % columns;
+            if (column + 1 < columns && v + 1 <= n) {
+                edges.add(v, v + 1);
+            }
+            if (v + columns <= n) {
+                edges.add(v, v + columns);
+            }
+        }
+    }
+
+    private static void geometric(int n, long m, Random random, EdgeList edges) {
+        double[] x = new double[n + 1];
+        double[] y = new double[n + 1];
+        for (int v = 1; v <= n; v++) {
+            x[v] = random.nextDouble();
+            y[v] = random.nextDouble();
+        }
+        double radius = Math.min(1.0, Math.sqrt(2.0 * m / (Math.PI * (double) n * n)));
+        // Bucket the points in cells of the radius, so only neighbouring cells are compared
+        int cells = Math.max(1, Math.min((int) (1 / radius), 1 << 12));
+        int[] head = new int[cells * cells];
+        int[] next = new int[n + 1];
+        Arrays.fill(head, 0);
+        for (int v = 1; v <= n; v++) {
+            int cell = cell(x[v], cells) * cells + cell(y[v], cells);
+            next[v] = head[cell];
+            head[cell] = v;
+        }
+        double r2 = radius * radius;
+        for (int v = 1; v <= n; v++) {
+            int cx = cell(x[v], cells);
+            int cy = cell(y[v], cells);
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    int nx = cx + dx;
+                    int ny = cy + dy;
+                    if (nx < 0 || ny < 0 || nx >= cells || ny >= cells) {
+                        continue;
+                    }
+                    for (int u = head[nx * cells + ny]; u != 0; u = next[u]) {
+                        if (u > v) {
+                            double ddx = x[u] - x[v];
+                            double ddy = y[u] - y[v];
+                            if (ddx * ddx + ddy * ddy <= r2) {
+                                edges.add(v, u);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static int cell(double coordinate, int cells) {
+        return Math.min(cells - 1, (int) (coordinate * cells));
+    }
+
+    private static void powerLaw(int n, long m, Random random, EdgeList edges) {
+        int perNode = (int) Math.max(1, m / Math.max(1, n));
+        // Every endpoint of every edge so far; picking uniformly from it is picking by degree
+        int[] endpoints = new int[(int) Math.min(Integer.MAX_VALUE - 8, 2L * perNode * n + 2)];
+        int size = 0;
+        for (int v = 2; v <= n; v++) {
+            int links = Math.min(perNode, v - 1);
+            for (int k = 0; k < links; k++) {
+                int u = size == 0 ? 1 : endpoints[random.nextInt(size)];
+                if (u == v) {
+                    continue;
+                }
+                edges.add(u, v);
+                if (size + 2 <= endpoints.length) {
+                    endpoints[size++] = u;
+                    endpoints[size++] = v;
+                }
+            }
+        }
+    }
+
+    // Joins every component to the one of node 1 with a random edge
+    private static void connect(int n, Random random, EdgeList edges) {
+        int[] parent = new int[n + 1];
+        for (int v = 1; v <= n; v++) {
+            parent[v] = v;
+        }
+        for (int i = 0; i < edges.size; i++) {
+            union(parent, edges.from[i], edges.to[i]);
+        }
+        for (int v = 2; v <= n; v++) {
+            if (find(parent, v) != find(parent, 1)) {
+                // Every node below v is already joined to node 1
+                int u = 1 + random.nextInt(v - 1);
+                edges.add(u, v);
+                union(parent, u, v);
+            }
+        }
+    }
+
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static void union(int[] parent, int u, int v) {
+        parent[find(parent, u)] = find(parent, v);
+    }
+
+    private static void assignWeights(Random random, EdgeList edges, boolean tied) {
+        if (tied) {
+            for (int i = 0; i < edges.size; i++) {
+                edges.weight[i] = 1 + random.nextInt(TIED_WEIGHT_RANGE);
+            }
+            return;
+        }
+        // A random permutation of 1..size
+        for (int i = 0; i < edges.size; i++) {
+            edges.weight[i] = i + 1;
+        }
+        for (int i = edges.size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int t = edges.weight[i];
+            edges.weight[i] = edges.weight[j];
+            edges.weight[j] = t;
+        }
+    }
+
+    private static final class EdgeList {
+        int[] from = new int[1024];
+        int[] to = new int[1024];
+        int[] weight = new int[1024];
+        int size = 0;
+
+        void add(int u, int v) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, size * 2);
+                to = Arrays.copyOf(to, size * 2);
+                weight = Arrays.copyOf(weight, size * 2);
+            }
+            from[size] = u;
+            to[size] = v;
+            size++;
+        }
+    }
+}
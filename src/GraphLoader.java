@@ -0,0 +1,162 @@
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Reads graphs through memory-mapped files into a CSR Graph. Two formats
+ * are understood:
+ *
+ * text   - the original input format: the number of nodes, followed by
+ *          "source target weight" lines, usually with every edge listed
+ *          from both ends.
+ * binary - MAGIC, the number of nodes (int), the number of edges (long),
+ *          then one (source, target, weight) int triple per undirected
+ *          edge, all big-endian.
+ */
+public final class GraphLoader {
+    public static final int MAGIC = 0x47485342; // "GHSB"
+    private static final int WINDOW = 1 << 30; // bytes mapped at a time
+
+    private GraphLoader() {
+    }
+
+    public static Graph load(String path) throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(path, "r"); FileChannel channel = file.getChannel()) {
+            if (channel.size() >= 4) {
+                ByteBuffer head = ByteBuffer.allocate(4);
+                channel.read(head, 0);
+                if (head.getInt(0) == MAGIC) {
+                    return loadBinary(channel);
+                }
+            }
+            return loadText(channel);
+        }
+    }
+
+    private static Graph loadText(FileChannel channel) throws IOException {
+        MappedReader reader = new MappedReader(channel);
+        int vertexCount = (int) reader.nextLong();
+        int capacity = 1024;
+        int[] from = new int[capacity];
+        int[] to = new int[capacity];
+        int[] weight = new int[capacity];
+        int count = 0;
+        while (reader.skipWhitespace()) {
+            if (count == capacity) {
+                capacity = capacity * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+            }
+            from[count] = (int) reader.nextLong();
+            to[count] = (int) reader.nextLong();
+            weight[count] = (int) reader.nextLong();
+            count++;
+        }
+        return Graph.fromEdges(vertexCount, from, to, weight, count);
+    }
+
+    private static Graph loadBinary(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(16);
+        channel.read(header, 0);
+        header.flip();
+        header.getInt();
+        int vertexCount = header.getInt();
+        long edgeCount = header.getLong();
+        if (edgeCount > Integer.MAX_VALUE / 2) {
+            throw new IOException("Too many edges for one JVM: " + edgeCount);
+        }
+        int count = (int) edgeCount;
+        int[] from = new int[count];
+        int[] to = new int[count];
+        int[] weight = new int[count];
+        long position = 16;
+        int records = WINDOW / 12; // map whole records only
+        for (int i = 0; i < count; ) {
+            int n = Math.min(records, count - i);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, (long) n * 12);
+            buffer.order(ByteOrder.BIG_ENDIAN);
+            for (int k = 0; k < n; k++, i++) {
+                from[i] = buffer.getInt();
+                to[i] = buffer.getInt();
+                weight[i] = buffer.getInt();
+            }
+            position += (long) n * 12;
+        }
+        return Graph.fromEdges(vertexCount, from, to, weight, count);
+    }
+
+    /**
+     * Streams the numbers of a text file through successive mapped windows.
+     */
+    private static final class MappedReader {
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart = 0;
+        private MappedByteBuffer buffer;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map();
+        }
+
+        private void map() throws IOException {
+            long length = Math.min(WINDOW, size - windowStart);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, windowStart, length);
+        }
+
+        // Returns -1 at the end of the file
+        private int peek() throws IOException {
+            if (!buffer.hasRemaining()) {
+                if (windowStart + buffer.capacity() >= size) {
+                    return -1;
+                }
+                windowStart += buffer.capacity();
+                map();
+            }
+            return buffer.get(buffer.position());
+        }
+
+        private void advance() {
+            buffer.position(buffer.position() + 1);
+        }
+
+        // Skips whitespace; returns false if the end of the file was reached
+        boolean skipWhitespace() throws IOException {
+            int c = peek();
+            while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+                advance();
+                c = peek();
+            }
+            return c != -1;
+        }
+
+        long nextLong() throws IOException {
+            if (!skipWhitespace()) {
+                throw new IOException("Unexpected end of graph file");
+            }
+            boolean negative = false;
+            int c = peek();
+            if (c == '-') {
+                negative = true;
+                advance();
+                c = peek();
+            }
+            if (c < '0' || c > '9') {
+                throw new IOException("Expected a number at byte " + (windowStart + buffer.position()));
+            }
+            long value = 0;
+            while (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                advance();
+                c = peek();
+            }
+            return negative ? -value : value;
+        }
+    }
+}
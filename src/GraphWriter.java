@@ -0,0 +1,46 @@
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Writes a Graph in the two formats GraphLoader reads.
+ */
+public final class GraphWriter {
+    private GraphWriter() {
+    }
+
+    // The original input format: every edge is listed from both ends
+    public static void writeText(Graph graph, String path) throws IOException {
+        try (BufferedWriter writer = new BufferedWriter(new FileWriter(path), 1 << 16)) {
+            writer.write(Integer.toString(graph.vertexCount));
+            writer.newLine();
+            for (int v = 1; v <= graph.vertexCount; v++) {
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+                    writer.write(v + " " + graph.targets[i] + " " + graph.weights[i]);
+                    writer.newLine();
+                }
+            }
+        }
+    }
+
+    // GraphLoader.MAGIC, node count, edge count, then every undirected edge once
+    public static void writeBinary(Graph graph, String path) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16))) {
+            out.writeInt(GraphLoader.MAGIC);
+            out.writeInt(graph.vertexCount);
+            out.writeLong(graph.edgeCount());
+            for (int v = 1; v <= graph.vertexCount; v++) {
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+                    if (graph.targets[i] > v) {
+                        out.writeInt(v);
+                        out.writeInt(graph.targets[i]);
+                        out.writeInt(graph.weights[i]);
+                    }
+                }
+            }
+        }
+    }
+}
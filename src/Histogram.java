@@ -0,0 +1,65 @@
+import java.util.Locale;
+
+/**
+ * Latency histogram with one bucket per power of two nanoseconds, so
+ * recording is a count of leading zeros and an increment. Percentiles are
+ * the upper bound of the bucket they fall in, within a factor of two.
+ * Written by one thread; other threads may read it while it runs.
+ */
+public class Histogram {
+    private static final int BUCKETS = 64;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sum;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts[Math.max(0, BUCKETS - 1 - Long.numberOfLeadingZeros(nanos))]++; // [2^i, 2^(i+1)) in bucket i
+        count++;
+        sum += nanos;
+        max = Math.max(max, nanos);
+    }
+
+    public void addAll(Histogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+        count += other.count;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public double meanNanos() {
+        return count == 0 ? 0 : (double) sum / count;
+    }
+
+    public long maxNanos() {
+        return max;
+    }
+
+    // The upper bound of the bucket holding the q-th quantile, 0 <= q <= 1
+    public long percentileNanos(double q) {
+        long rank = (long) Math.ceil(q * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return Math.min(max, i == BUCKETS - 1 ? Long.MAX_VALUE : (1L << (i + 1)) - 1);
+            }
+        }
+        return 0;
+    }
+
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"count\":%d,\"meanMicros\":%.3f,\"p50Micros\":%.3f,\"p99Micros\":%.3f,\"maxMicros\":%.3f}",
+                count, meanNanos() / 1000, percentileNanos(0.5) / 1000.0, percentileNanos(0.99) / 1000.0, max / 1000.0);
+    }
+}
@@ -0,0 +1,18 @@
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * The one remote object of a JVM. It hands messages to the local node they
+ * are addressed to, so registry entries and connections scale with the
+ * number of JVMs instead of the number of nodes.
+ */
+public interface IRouter extends Remote {
+    void route(Integer nodeId, Message message) throws RemoteException;
+
+    // Several messages for the same node in one call, handled in list order
+    void routeBatch(Integer nodeId, List<Message> messages) throws RemoteException;
+
+    // Ids of the nodes hosted behind this router
+    int[] nodeIds() throws RemoteException;
+}
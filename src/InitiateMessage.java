@@ -0,0 +1,31 @@
+import java.nio.ByteBuffer;
+
+public class InitiateMessage extends Message {
+    final Integer level;
+    final Weight name;
+    final NodeState state;
+
+    public InitiateMessage(Integer from, Integer level, Weight name, NodeState state) {
+        super(from);
+        this.level = level;
+        this.name = name;
+        this.state = state;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.INITIATE;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleInitiate(from, level, name, state);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(level);
+        writeWeight(buffer, name);
+        buffer.put((byte) state.ordinal());
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Items a node cannot handle yet, bucketed by the fragment level at which
+ * they become handleable. Raising the level hands over exactly the buckets
+ * it unblocks, first in first out within a bucket, without looking at the
+ * items that stay deferred.
+ */
+public class LevelQueue<T> {
+    private final ArrayList<ArrayDeque<T>> buckets = new ArrayList<>();
+    private int lowest = Integer.MAX_VALUE; // no bucket below this one holds items
+    private int size = 0;
+
+    public void add(int level, T item) {
+        while (buckets.size() <= level) {
+            buckets.add(null);
+        }
+        ArrayDeque<T> bucket = buckets.get(level);
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            buckets.set(level, bucket);
+        }
+        bucket.add(item);
+        size++;
+        lowest = Math.min(lowest, level);
+    }
+
+    // Hands over every item added with a level up to and including the given one
+    public void releaseUpTo(int level, Consumer<T> sink) {
+        if (size == 0 || level < lowest) {
+            return;
+        }
+        int last = Math.min(level, buckets.size() - 1);
+        for (int l = lowest; l <= last; l++) {
+            ArrayDeque<T> bucket = buckets.get(l);
+            if (bucket != null) {
+                T item;
+                while ((item = bucket.poll()) != null) {
+                    size--;
+                    sink.accept(item);
+                }
+            }
+        }
+        lowest = size == 0 ? Integer.MAX_VALUE : last + 1;
+    }
+
+    public int size() {
+        return size;
+    }
+}
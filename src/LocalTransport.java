@@ -0,0 +1,49 @@
+import java.util.List;
+
+/**
+ * Transport for nodes that all live in this JVM: the message object is
+ * posted straight into the receiver's mailbox, without serialization or
+ * a registry.
+ */
+public class LocalTransport implements Transport {
+    private final NodeTable nodes = new NodeTable();
+
+    @Override
+    public void bind(Node node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void ready() {
+    }
+
+    public boolean hosts(Integer nodeId) {
+        return nodes.hosts(nodeId);
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) {
+        Node receiver = nodes.get(message.job, receiverId);
+        if (receiver != null) {
+            receiver.post(message);
+        }
+    }
+
+    // A batch for one vertex may hold messages of several jobs
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) {
+        for (Message message : messages) {
+            send(receiverId, message);
+        }
+    }
+
+    @Override
+    public void close() {
+        nodes.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: local, " + nodes.size() + " nodes]";
+    }
+}
@@ -0,0 +1,70 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simulates an unreliable network: every message is dropped with the given
+ * probability instead of being passed to the wrapped transport. Without
+ * --retry a single loss usually stalls the run.
+ */
+public class LossyTransport implements Transport {
+    private final Transport delegate;
+    private final double lossRate;
+    private final LongAdder dropped = new LongAdder();
+
+    public LossyTransport(Transport delegate, double lossRate) {
+        this.delegate = delegate;
+        this.lossRate = lossRate;
+    }
+
+    @Override
+    public void bind(Node node) throws RemoteException, AlreadyBoundException {
+        delegate.bind(node);
+    }
+
+    @Override
+    public void ready() {
+        delegate.ready();
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) throws RemoteException {
+        if (lost()) {
+            dropped.increment();
+        } else {
+            delegate.send(receiverId, message);
+        }
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) throws RemoteException {
+        List<Message> kept = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            if (lost()) {
+                dropped.increment();
+            } else {
+                kept.add(message);
+            }
+        }
+        if (!kept.isEmpty()) {
+            delegate.sendBatch(receiverId, kept);
+        }
+    }
+
+    private boolean lost() {
+        return lossRate > 0 && ThreadLocalRandom.current().nextDouble() < lossRate;
+    }
+
+    @Override
+    public void close() {
+        delegate.close();
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: lossy (" + lossRate + "), " + dropped.sum() + " dropped, " + delegate + "]";
+    }
+}
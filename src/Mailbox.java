@@ -0,0 +1,68 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free multi-producer/single-consumer queue of messages for one node.
+ * Any thread may post; the mailbox schedules itself on the shared pool and
+ * is drained by at most one worker at a time, so the handler never runs
+ * concurrently with itself.
+ */
+public class Mailbox<T> implements Runnable {
+    private static final int THROUGHPUT = 64; // messages handled before yielding the worker
+
+    private static final class Cell<T> {
+        T item;
+        volatile Cell<T> next;
+
+        Cell(T item) {
+            this.item = item;
+        }
+    }
+
+    private final Consumer<T> handler;
+    private final AtomicReference<Cell<T>> tail;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private Cell<T> head; // only touched by the consumer
+
+    public Mailbox(Consumer<T> handler) {
+        this.handler = handler;
+        this.head = new Cell<>(null);
+        this.tail = new AtomicReference<>(head);
+    }
+
+    public void post(T item) {
+        Cell<T> cell = new Cell<>(item);
+        Cell<T> previous = tail.getAndSet(cell);
+        previous.next = cell;
+        if (scheduled.compareAndSet(false, true)) {
+            Scheduler.execute(this);
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            for (int i = 0; i < THROUGHPUT; i++) {
+                Cell<T> next = head.next;
+                if (next == null) {
+                    break;
+                }
+                T item = next.item;
+                next.item = null;
+                head = next;
+                try {
+                    handler.accept(item);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        } finally {
+            scheduled.set(false);
+            // A producer may have linked a cell after we saw the queue empty
+            if (head.next != null && scheduled.compareAndSet(false, true)) {
+                Scheduler.execute(this);
+            }
+        }
+    }
+}
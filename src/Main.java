@@ -1,71 +1,480 @@
-import java.io.FileNotFoundException;
-import java.io.FileReader;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.InetSocketAddress;
+import java.nio.file.Paths;
 import java.rmi.AlreadyBoundException;
-import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
-import java.rmi.registry.LocateRegistry;
-import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Scanner;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToLongFunction;
 
 public class Main {
 
-    public static void main(String[] args) throws RemoteException, AlreadyBoundException, FileNotFoundException {
-        FileReader fileReader = new FileReader(args[0]);
-        Scanner scanner = new Scanner(fileReader);
+    public static void main(String[] args) throws IOException, AlreadyBoundException, InterruptedException {
+        String transportName = "rmi";
+        long batchWindow = -1;
+        int batchSize = 64;
+        int delay = 150;
+        Long seed = null;
+        String statsFile = null;
+        List<String> inputFiles = new ArrayList<>();
+        int shardIndex = -1;
+        int shardCount = 1;
+        String[] peers = {"localhost"}; // the RMI registries to look nodes up in, remote hosts come from --peers
+        boolean peersGiven = false;
+        int port = 7100;
+        String shmDirectory = null;
+        String engine = "nodes";
+        boolean verify = false;
+        String updatesFile = null;
+        String metricsFile = null;
+        boolean jmx = false;
+        String eventLogFile = null;
+        String logLevel = "debug";
+        Retransmitter retransmitter = null;
+        double loss = 0;
+        long watchdogMillis = 0;
+        WakeupPolicy wakeup = new WakeupPolicy(WakeupPolicy.Kind.RANDOM, 1000);
+        boolean concurrent = false;
+        for (String arg : args) {
+            if (arg.startsWith("--transport=")) {
+                transportName = arg.substring("--transport=".length());
+            } else if (arg.startsWith("--batch-window=")) {
+                batchWindow = Long.parseLong(arg.substring("--batch-window=".length()));
+            } else if (arg.startsWith("--batch-size=")) {
+                batchSize = Integer.parseInt(arg.substring("--batch-size=".length()));
+            } else if (arg.startsWith("--delay=")) {
+                delay = Integer.parseInt(arg.substring("--delay=".length()));
+            } else if (arg.startsWith("--simulate=")) {
+                seed = Long.parseLong(arg.substring("--simulate=".length()));
+            } else if (arg.startsWith("--stats=")) {
+                statsFile = arg.substring("--stats=".length());
+            } else if (arg.startsWith("--shard=")) {
+                String[] shard = arg.substring("--shard=".length()).split("/");
+                shardIndex = Integer.parseInt(shard[0]);
+                shardCount = Integer.parseInt(shard[1]);
+            } else if (arg.startsWith("--port=")) {
+                port = Integer.parseInt(arg.substring("--port=".length()));
+            } else if (arg.startsWith("--shm-dir=")) {
+                shmDirectory = arg.substring("--shm-dir=".length());
+            } else if (arg.equals("--verify")) {
+                verify = true;
+            } else if (arg.startsWith("--event-log=")) {
+                eventLogFile = arg.substring("--event-log=".length());
+            } else if (arg.startsWith("--log-level=")) {
+                logLevel = arg.substring("--log-level=".length());
+            } else if (arg.startsWith("--metrics=")) {
+                metricsFile = arg.substring("--metrics=".length());
+            } else if (arg.equals("--jmx")) {
+                jmx = true;
+            } else if (arg.startsWith("--updates=")) {
+                updatesFile = arg.substring("--updates=".length());
+            } else if (arg.startsWith("--engine=")) {
+                engine = arg.substring("--engine=".length());
+            } else if (arg.startsWith("--retry=")) {
+                retransmitter = Retransmitter.parse(arg.substring("--retry=".length()));
+            } else if (arg.startsWith("--loss=")) {
+                loss = Double.parseDouble(arg.substring("--loss=".length()));
+            } else if (arg.startsWith("--watchdog=")) {
+                watchdogMillis = Long.parseLong(arg.substring("--watchdog=".length()));
+            } else if (arg.equals("--concurrent")) {
+                concurrent = true;
+            } else if (arg.startsWith("--wakeup=")) {
+                wakeup = WakeupPolicy.parse(arg.substring("--wakeup=".length()));
+            } else if (arg.startsWith("--peers=")) {
+                peers = arg.substring("--peers=".length()).split(",");
+                peersGiven = true;
+            } else {
+                inputFiles.add(arg);
+            }
+        }
+        if (inputFiles.isEmpty()) {
+            System.err.println("Usage: Main [--transport=rmi|socket|shm|local] [--batch-window=<ms>] [--batch-size=<n>] [--delay=<ms>] [--simulate=<seed>] [--stats=<file>] [--shard=<i>/<k>] [--peers=<host,...>] [--port=<base port>] [--shm-dir=<dir>] [--engine=nodes|columnar|kruskal|prim|boruvka] [--verify] [--updates=<file>] [--metrics=<json file>] [--jmx] [--event-log=<file>] [--log-level=off|info|debug|trace] [--retry=<ms>[,<max ms>[,<attempts>]]] [--loss=<rate>] [--watchdog=<ms>] [--wakeup=all|single[:<id>]|staggered:<ms>|random:<ms>] [--concurrent] <input file>...");
+            System.exit(1);
+        }
 
-        List<Integer> allIds = new ArrayList<>();
-        List<Node> nodes = new ArrayList<>();
-        Registry registry = LocateRegistry.getRegistry("localhost", 1099);
-        int amountOfNodes = scanner.nextInt();
+        List<EdgeUpdate> updates = updatesFile != null ? EdgeUpdate.read(updatesFile) : null;
+        if (updates != null && engine.equals("nodes") && (seed != null || shardIndex >= 0)) {
+            throw new IllegalArgumentException("--updates needs the nodes of one JVM on a real transport, or any other engine");
+        } else if (inputFiles.size() > 1 && shardIndex >= 0) {
+            throw new IllegalArgumentException("A shard runs one graph");
+        } else if ((retransmitter != null || loss > 0) && seed != null) {
+            throw new IllegalArgumentException("--retry and --loss need a real-time transport, a simulation never loses messages");
+        } else if (concurrent && (seed != null || shardIndex >= 0 || updates != null || !engine.equals("nodes")
+                || statsFile != null || metricsFile != null || jmx)) {
+            throw new IllegalArgumentException("--concurrent runs GHS jobs in one JVM on a real-time transport, "
+                    + "without --simulate, --shard, --updates, --engine, --stats, --metrics or --jmx");
+        }
 
-        Map<Integer, List<Edge>> edgeMap = new HashMap<>();
+        if (eventLogFile != null) {
+            // Every shard logs to a file of its own
+            EventLog.open(Paths.get(shardIndex >= 0 ? eventLogFile + "." + shardIndex : eventLogFile), logLevel);
+            Runtime.getRuntime().addShutdownHook(new Thread(EventLog::close));
+        }
 
-        for (int i = 1; i < amountOfNodes + 1; i++) {
-            List<Edge> edgeList = new ArrayList<>();
-            edgeMap.put(i, edgeList);
+        if (concurrent) {
+            List<Graph> graphs = new ArrayList<>();
+            int vertices = 0;
+            for (String inputFile : inputFiles) {
+                graphs.add(GraphLoader.load(inputFile));
+                vertices = Math.max(vertices, graphs.get(graphs.size() - 1).vertexCount());
+            }
+            Transport transport = createTransport(transportName, peers, peersGiven, port, shmDirectory, 0, 1, new int[vertices + 1]);
+            if (batchWindow >= 0) {
+                transport = new BatchingTransport(transport, batchWindow, batchSize);
+            }
+            transport = unreliable(transport, delay, loss);
+            runJobs(graphs, transport, wakeup, retransmitter, watchdogMillis, verify);
+            System.exit(100);
         }
 
-        while (scanner.hasNextLine()) {
-            int source = scanner.nextInt();
-            int target = scanner.nextInt();
-            int weight = scanner.nextInt();
-            if (source < target) {
-                edgeMap.get(source).add(new Edge(source, target, new Weight(weight, source, target)));
+        // Graphs run one after another in this JVM, the exit status covers all of them
+        int status = 0;
+        for (String inputFile : inputFiles) {
+            Graph graph = GraphLoader.load(inputFile);
+            if (updates != null && !engine.equals("nodes")) {
+                runUpdates(graph, updates, verify);
+                status = combine(status, true);
+                continue;
+            } else if (engine.equals("columnar")) {
+                status = combine(status, runColumnar(graph, statsFile, verify));
+                continue;
+            } else if (!engine.equals("nodes")) {
+                runSolver(engine, graph, statsFile, verify);
+                status = combine(status, true);
+                continue;
+            }
+            // A shard only hosts the vertices the partitioner gives it, every shard computes the same partition
+            int[] partition = shardIndex >= 0 ? Partitioner.partition(graph, shardCount) : null;
+
+            Simulation simulation = null;
+            Transport transport;
+            if (seed != null) {
+                simulation = new Simulation(seed, delay);
+                transport = simulation;
+            } else {
+                transport = createTransport(transportName, peers, peersGiven, port, shmDirectory, Math.max(shardIndex, 0),
+                        shardCount, partition != null ? partition : new int[graph.vertexCount() + 1]);
+                if (batchWindow >= 0) {
+                    transport = new BatchingTransport(transport, batchWindow, batchSize);
+                }
+                if (partition != null) {
+                    transport = new ShardedTransport(new LocalTransport(), transport);
+                }
+                transport = unreliable(transport, delay, loss);
+            }
+            CountingTransport counting = new CountingTransport(transport);
+            int shard = shardIndex;
+            GhsEngine ghs = new GhsEngine(graph, counting, id -> partition == null || partition[id] == shard);
+            List<Node> nodes = ghs.nodes();
+            MstResult result = ghs.result();
+
+            // The run is over when the root has the whole tree, or when the last update is repaired
+            CountDownLatch done = new CountDownLatch(1);
+            UpdateDriver driver = null;
+            if (updates != null) {
+                driver = new UpdateDriver(nodes, updates, new DynamicMst(graph), done::countDown);
+            }
+            for (Node node : nodes) {
+                node.onQuiet(driver != null ? driver::quiet : done::countDown);
+                if (retransmitter != null) {
+                    node.reliable(retransmitter.copy());
+                }
+                // Timestamps and counters cost time and heap on big graphs, so nodes only keep them when asked
+                if (metricsFile != null || jmx) {
+                    node.collectMetrics();
+                }
+            }
+            Watchdog watchdog = watchdogMillis > 0 ? new Watchdog(nodes, watchdogMillis, System.err).start() : null;
+            UpdateDriver finalDriver = driver;
+            Metrics metrics = metricsFile != null || jmx ? new Metrics(nodes, graph) : null;
+            if (jmx) {
+                metrics.register();
+            }
+            // Every shard dumps the metrics of its own nodes
+            String finalMetricsFile = metricsFile != null && partition != null ? metricsFile + "." + shardIndex : metricsFile;
+
+            long start = System.nanoTime();
+            String startup = "[Startup: " + nodes.size() + " nodes built and bound in " + ghs.setupMillis()
+                    + " ms, wake-up " + wakeup + "]";
+            String finalStatsFile = statsFile;
+            boolean finalVerify = verify && partition == null; // a shard only sees its own part of the tree
+            AtomicBoolean reported = new AtomicBoolean();
+            Runnable report = () -> {
+                if (!reported.compareAndSet(false, true)) {
+                    return;
+                }
+                long elapsed = System.nanoTime() - start;
+                if (watchdog != null) {
+                    watchdog.stop();
+                }
+                PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+                // Repairs leave no termination wave behind updates that kept the tree, so ask the nodes
+                Graph current = finalDriver != null ? finalDriver.graph() : graph;
+                SpanningForest mst = finalDriver != null ? collectMst(current, nodes) : result.forest();
+                if (finalDriver != null) {
+                    mst.print(out);
+                    out.println(mst);
+                } else {
+                    result.print(out);
+                }
+                out.println(counting);
+                out.println(startup);
+                out.flush();
+                ghs.close();
+                if (finalVerify) {
+                    verify(current, mst);
+                }
+                if (finalStatsFile != null) {
+                    writeStats(finalStatsFile, graph, counting::count, elapsed);
+                }
+                if (finalMetricsFile != null) {
+                    metrics.writeJson(finalMetricsFile);
+                }
+            };
+
+            boolean halted;
+            if (simulation != null) {
+                simulation.run(wakeup);
+                halted = done.getCount() == 0;
+            } else if (partition != null) {
+                // The launcher stops the shards without the root, which then print their part of the tree
+                Runtime.getRuntime().addShutdownHook(new Thread(report));
+                // ShardLauncher starts all shards together once every one of them has bound its nodes
+                RmiTransport.localRegistry()
+                        .rebind("shard" + shardIndex, UnicastRemoteObject.exportObject(new Shard(nodes, graph.vertexCount(), wakeup), 0));
+                System.out.println("Shard " + shardIndex + "/" + shardCount + " bound " + nodes.size() + " nodes");
+                done.await();
+                halted = true;
             } else {
-                edgeMap.get(source).add(new Edge(source, target, new Weight(weight, target, source)));
+                ghs.start(wakeup);
+                done.await();
+                halted = true;
             }
+            report.run();
+            status = combine(status, halted);
         }
+        System.exit(status);
+    }
 
-        for (Integer id : edgeMap.keySet()) {
-            List<Edge> edges = edgeMap.get(id);
-            Node node = new Node(id, edges);
-            nodes.add(node);
-            allIds.add(id);
+    private static Transport unreliable(Transport transport, int delay, double loss) {
+        if (delay > 0) {
+            transport = new DelayedTransport(transport, delay);
+        }
+        if (loss > 0) {
+            transport = new LossyTransport(transport, loss);
+        }
+        return transport;
+    }
 
-            INode stub = (INode) UnicastRemoteObject.exportObject(node, 0);
-            registry.bind("p" + id, stub);
-            new Thread(node).start();
+    /**
+     * Runs every graph as a job of its own, all at once on one transport, so
+     * they share the mailbox threads instead of queueing behind each other.
+     * Returns once every job has terminated.
+     */
+    private static void runJobs(List<Graph> graphs, Transport transport, WakeupPolicy wakeup, Retransmitter retransmitter,
+                                   long watchdogMillis, boolean verify)
+            throws RemoteException, AlreadyBoundException, InterruptedException {
+        CountingTransport counting = new CountingTransport(transport);
+        List<GhsEngine> jobs = new ArrayList<>();
+        List<Node> nodes = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(graphs.size());
+        for (int job = 0; job < graphs.size(); job++) {
+            GhsEngine ghs = new GhsEngine(job, graphs.get(job), counting, id -> true);
+            for (Node node : ghs.nodes()) {
+                node.onQuiet(done::countDown);
+                if (retransmitter != null) {
+                    node.reliable(retransmitter.copy());
+                }
+            }
+            jobs.add(ghs);
+            nodes.addAll(ghs.nodes());
         }
+        Watchdog watchdog = watchdogMillis > 0 ? new Watchdog(nodes, watchdogMillis, System.err).start() : null;
 
-        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
-            for (Node node : nodes) {
-                node.printStatus();
+        long start = System.nanoTime();
+        for (GhsEngine ghs : jobs) {
+            ghs.start(wakeup);
+        }
+        done.await();
+        long elapsed = System.nanoTime() - start;
+        if (watchdog != null) {
+            watchdog.stop();
+        }
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        for (int job = 0; job < jobs.size(); job++) {
+            out.println("Job " + job + ":");
+            jobs.get(job).result().print(out);
+        }
+        out.println(counting);
+        out.println(String.format(Locale.ROOT, "[Jobs: %d at once in %d ms, %.1f jobs/s]", jobs.size(),
+                elapsed / 1_000_000, jobs.size() * 1e9 / elapsed));
+        out.flush();
+        counting.close();
+        if (verify) {
+            for (int job = 0; job < jobs.size(); job++) {
+                System.out.print("Job " + job + ": ");
+                verify(graphs.get(job), jobs.get(job).result().forest());
             }
-            for (Integer id : allIds) {
-                try {
-                    registry.unbind("p" + id);
-                } catch (RemoteException e) {
-                    e.printStackTrace();
-                } catch (NotBoundException e) {
-                    e.printStackTrace();
-                }
+        }
+    }
+
+    // 100 once every graph halted, 1 if any did not
+    private static int combine(int status, boolean halted) {
+        return !halted || status == 1 ? 1 : 100;
+    }
+
+    // The whole graph in one thread on primitive arrays
+    private static boolean runColumnar(Graph graph, String statsFile, boolean verify) {
+        long start = System.nanoTime();
+        ColumnarEngine columnar = new ColumnarEngine(graph);
+        boolean halted = columnar.run();
+        long elapsed = System.nanoTime() - start;
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        SpanningForest mst = columnar.mst(graph);
+        mst.print(out);
+        out.println(columnar);
+        out.flush();
+        if (verify) {
+            verify(graph, mst);
+        }
+        if (statsFile != null) {
+            writeStats(statsFile, graph, columnar::count, elapsed);
+        }
+        return halted;
+    }
+
+    // A centralized solver instead of GHS, for graphs that fit on one machine
+    private static void runSolver(String algorithm, Graph graph, String statsFile, boolean verify) {
+        long start = System.nanoTime();
+        SpanningForest mst = MstSolver.solve(algorithm, graph);
+        long elapsed = System.nanoTime() - start;
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        mst.print(out);
+        out.println(mst + " by " + algorithm + " in " + elapsed / 1_000_000 + " ms");
+        out.flush();
+        if (verify) {
+            // Kruskal cannot check itself, so it is checked against Prim
+            verify(graph, mst, algorithm.equals("kruskal") ? "prim" : "kruskal");
+        }
+        if (statsFile != null) {
+            writeStats(statsFile, graph, type -> 0, elapsed);
+        }
+    }
+
+    // Keeps the MST of the input up to date through the updates instead of solving every version again, for every engine but nodes
+    private static void runUpdates(Graph graph, List<EdgeUpdate> updates, boolean verify) {
+        DynamicMst dynamic = new DynamicMst(graph);
+        long start = System.nanoTime();
+        int changed = 0;
+        for (EdgeUpdate update : updates) {
+            if (dynamic.apply(update)) {
+                changed++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        PrintStream out = new PrintStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out), 1 << 16));
+        SpanningForest mst = dynamic.forest();
+        mst.print(out);
+        out.println(mst + " after " + updates.size() + " updates, " + changed + " of them changed the tree, in "
+                + elapsed / 1_000_000 + " ms");
+        out.flush();
+        if (verify) {
+            verify(dynamic.graph(), mst);
+        }
+    }
+
+    private static SpanningForest collectMst(Graph graph, List<Node> nodes) {
+        int[] from = new int[2 * graph.edgeCount()];
+        int[] to = new int[from.length];
+        int count = 0;
+        for (Node node : nodes) {
+            for (int neighbor : node.mstNeighbors()) {
+                from[count] = node.getId();
+                to[count++] = neighbor;
             }
-        }));
+        }
+        return SpanningForest.ofEndpoints(graph, from, to, count);
+    }
+
+    // Checks a GHS result against Kruskal on the same graph
+    private static void verify(Graph graph, SpanningForest mst) {
+        verify(graph, mst, "kruskal");
+    }
+
+    private static void verify(Graph graph, SpanningForest mst, String algorithm) {
+        SpanningForest expected = MstSolver.solve(algorithm, graph);
+        String name = Character.toUpperCase(algorithm.charAt(0)) + algorithm.substring(1);
+        if (mst.equals(expected)) {
+            System.out.println("Verified against " + name + ": " + mst);
+        } else {
+            System.out.println("MST differs from " + name + ": got " + mst + ", expected " + expected);
+        }
+    }
 
+    // Run statistics for ScalingRunner, as a properties file
+    private static void writeStats(String path, Graph graph, ToLongFunction<MessageType> counts, long elapsedNanos) {
+        Properties stats = new Properties();
+        stats.setProperty("nodes", Integer.toString(graph.vertexCount()));
+        stats.setProperty("edges", Integer.toString(graph.edgeCount()));
+        stats.setProperty("wallMillis", Long.toString(elapsedNanos / 1_000_000));
+        long total = 0;
+        long ghs = 0;
+        for (MessageType type : MessageType.values()) {
+            stats.setProperty("messages." + type, Long.toString(counts.applyAsLong(type)));
+            total += counts.applyAsLong(type);
+            ghs += type.ghs() ? counts.applyAsLong(type) : 0;
+        }
+        stats.setProperty("messages.total", Long.toString(total));
+        stats.setProperty("messages.ghs", Long.toString(ghs));
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+        stats.setProperty("peakHeapBytes", Long.toString(peakHeap));
+        stats.setProperty("peakThreads", Integer.toString(ManagementFactory.getThreadMXBean().getPeakThreadCount()));
+        try (OutputStream out = new FileOutputStream(path)) {
+            stats.store(out, "GHS run statistics");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    // Socket peers listen on consecutive ports from the base port, on the hosts in --peers if it names one per shard
+    private static Transport createTransport(String name, String[] peers, boolean peersGiven, int port, String shmDirectory,
+                                             int shardIndex, int shardCount, int[] partition) throws IOException {
+        switch (name) {
+            case "rmi":
+                return new RmiTransport(RmiTransport.localRegistry(), new NodeDirectory(peers));
+            case "socket":
+                InetSocketAddress[] addresses = new InetSocketAddress[shardCount];
+                for (int i = 0; i < shardCount; i++) {
+                    addresses[i] = new InetSocketAddress(peersGiven && peers.length == shardCount ? peers[i] : "localhost", port + i);
+                }
+                return new SocketTransport(shardIndex, addresses, partition);
+            case "shm":
+                if (shmDirectory == null) {
+                    throw new IllegalArgumentException("The shm transport needs a fresh --shm-dir shared by all shards");
+                }
+                return new ShmTransport(shardIndex, shardCount, Paths.get(shmDirectory), partition);
+            case "local":
+                return new LocalTransport();
+            default:
+                throw new IllegalArgumentException("Unknown transport: " + name);
+        }
     }
 }
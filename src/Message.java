@@ -0,0 +1,77 @@
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+
+public abstract class Message implements Serializable {
+    final Integer from;
+    int job; // the GHS run it belongs to, transports deliver it to the receiver's node of that job
+    int seq; // position on the sender's link to the receiver, from 1; 0 for local messages
+    transient long sentAt; // System.nanoTime() when a node that collects metrics sent it, 0 otherwise or after serialization
+
+    public Message(Integer from) {
+        this.from = from;
+    }
+
+    abstract MessageType type();
+
+    // Run the matching code fragment on the node that owns the mailbox
+    abstract void handle(Node node);
+
+    // Write the fields of a binary frame, type().payloadBytes long
+    void writeTo(ByteBuffer buffer) {
+    }
+
+    // Reads the fields of a binary frame and restores the job and link sequence number from its header
+    static Message readFrom(MessageType type, int job, Integer from, int seq, ByteBuffer buffer) {
+        Message message = readFrom(type, from, buffer);
+        message.job = job;
+        message.seq = seq;
+        return message;
+    }
+
+    static Message readFrom(MessageType type, Integer from, ByteBuffer buffer) {
+        switch (type) {
+            case CONNECT:
+                return new ConnectMessage(from, buffer.getInt());
+            case INITIATE:
+                return new InitiateMessage(from, buffer.getInt(), readWeight(buffer), NodeState.values()[buffer.get()]);
+            case TEST:
+                return new TestMessage(from, buffer.getInt(), readWeight(buffer));
+            case ACCEPT:
+                return new AcceptMessage(from);
+            case REJECT:
+                return new RejectMessage(from);
+            case REPORT:
+                return new ReportMessage(from, readWeight(buffer));
+            case CHANGE_ROOT:
+                return new ChangeRootMessage(from);
+            case PROBE:
+                return new ProbeMessage(from, buffer.getInt(), readWeight(buffer), readWeight(buffer));
+            case SWAP:
+                return new SwapMessage(from, readWeight(buffer));
+            case REPAIR:
+                return new RepairMessage(from, buffer.getInt(), readWeight(buffer), readWeight(buffer));
+            case TERMINATE:
+                return new TerminateMessage(from);
+            case RESULT:
+                return new ResultMessage(from, buffer.getInt(), buffer.getLong());
+            case ACK:
+                return new AckMessage(from, buffer.getInt());
+            default:
+                throw new IllegalArgumentException("No frame for " + type);
+        }
+    }
+
+    // A node has no fragment name before it is first initiated, ids -2 stand for that
+    static void writeWeight(ByteBuffer buffer, Weight weight) {
+        if (weight == null) {
+            buffer.putInt(0).putInt(-2).putInt(-2);
+        } else {
+            weight.writeTo(buffer);
+        }
+    }
+
+    static Weight readWeight(ByteBuffer buffer) {
+        Weight weight = Weight.readFrom(buffer);
+        return weight.getLowerId() == -2 && weight.getHigherId() == -2 ? null : weight;
+    }
+}
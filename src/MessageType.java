@@ -0,0 +1,34 @@
+public enum MessageType {
+    CONNECT(Integer.BYTES),
+    INITIATE(Integer.BYTES + Weight.BYTES + 1),
+    TEST(Integer.BYTES + Weight.BYTES),
+    ACCEPT(0),
+    REJECT(0),
+    REPORT(Weight.BYTES),
+    CHANGE_ROOT(0),
+    PROBE(Integer.BYTES + 2 * Weight.BYTES),
+    SWAP(Weight.BYTES),
+    REPAIR(Integer.BYTES + 2 * Weight.BYTES),
+    TERMINATE(0),
+    RESULT(Integer.BYTES + Long.BYTES),
+    ACK(Integer.BYTES), // the last sequence number handled on a link, only with reliable delivery
+    WAKEUP(0), // spontaneous start, never sent over a link
+    EDGE_UPDATE(0), // a graph change at an endpoint, never sent over a link
+    RETRY(0); // a node's retransmission timer, never sent over a link
+
+    // Size of the message fields in a binary frame, after the sender id
+    final int payloadBytes;
+
+    MessageType(int payloadBytes) {
+        this.payloadBytes = payloadBytes;
+    }
+
+    // One of the seven message types of the GHS paper, the ones the GHS bound counts
+    boolean ghs() {
+        return ordinal() <= CHANGE_ROOT.ordinal();
+    }
+
+    boolean local() {
+        return this == WAKEUP || this == EDGE_UPDATE || this == RETRY;
+    }
+}
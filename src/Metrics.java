@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Locale;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Sums the NodeMetrics of the nodes in this JVM for JMX, and dumps them as
+ * JSON at termination: totals per message type against the GHS bound,
+ * deferred queue depths, send-to-handle latency, the time spent at each
+ * fragment level, and the same per node.
+ */
+public class Metrics implements MetricsMBean {
+    public static final String NAME = "ghs:type=Metrics";
+
+    private final List<Node> nodes;
+    private final Graph graph;
+
+    public Metrics(List<Node> nodes, Graph graph) {
+        this.nodes = nodes;
+        this.graph = graph;
+    }
+
+    // Replaces the metrics of an earlier run in this JVM
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public long sent(MessageType type) {
+        long total = 0;
+        for (Node node : nodes) {
+            total += node.metrics().sent(type);
+        }
+        return total;
+    }
+
+    public long received(MessageType type) {
+        long total = 0;
+        for (Node node : nodes) {
+            total += node.metrics().received(type);
+        }
+        return total;
+    }
+
+    private int deferred(MessageType type) {
+        int total = 0;
+        for (Node node : nodes) {
+            total += node.metrics().deferred(type);
+        }
+        return total;
+    }
+
+    public Histogram latency() {
+        Histogram all = new Histogram();
+        for (Node node : nodes) {
+            all.addAll(node.metrics().latency());
+        }
+        return all;
+    }
+
+    @Override
+    public long getConnect() {
+        return sent(MessageType.CONNECT);
+    }
+
+    @Override
+    public long getInitiate() {
+        return sent(MessageType.INITIATE);
+    }
+
+    @Override
+    public long getTest() {
+        return sent(MessageType.TEST);
+    }
+
+    @Override
+    public long getAccept() {
+        return sent(MessageType.ACCEPT);
+    }
+
+    @Override
+    public long getReject() {
+        return sent(MessageType.REJECT);
+    }
+
+    @Override
+    public long getReport() {
+        return sent(MessageType.REPORT);
+    }
+
+    @Override
+    public long getChangeRoot() {
+        return sent(MessageType.CHANGE_ROOT);
+    }
+
+    @Override
+    public long getTotal() {
+        long total = 0;
+        for (MessageType type : MessageType.values()) {
+            if (!type.local()) {
+                total += sent(type);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getGhsTotal() {
+        long total = 0;
+        for (MessageType type : MessageType.values()) {
+            if (type.ghs()) {
+                total += sent(type);
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public long getGhsBound() {
+        return ScalingRunner.ghsBound(graph.vertexCount(), graph.edgeCount());
+    }
+
+    @Override
+    public int getDeferredTests() {
+        return deferred(MessageType.TEST);
+    }
+
+    @Override
+    public int getDeferredConnects() {
+        return deferred(MessageType.CONNECT);
+    }
+
+    @Override
+    public int getDeferredReports() {
+        return deferred(MessageType.REPORT);
+    }
+
+    @Override
+    public long getReordered() {
+        long total = 0;
+        for (Node node : nodes) {
+            total += node.metrics().reordered();
+        }
+        return total;
+    }
+
+    @Override
+    public long getRetransmitted() {
+        long total = 0;
+        for (Node node : nodes) {
+            total += node.metrics().retransmitted();
+        }
+        return total;
+    }
+
+    @Override
+    public long getDuplicates() {
+        long total = 0;
+        for (Node node : nodes) {
+            total += node.metrics().duplicates();
+        }
+        return total;
+    }
+
+    @Override
+    public int getMaxLevel() {
+        int max = 0;
+        for (Node node : nodes) {
+            max = Math.max(max, node.metrics().levelNanos().length - 1);
+        }
+        return max;
+    }
+
+    @Override
+    public double getLatencyP50Micros() {
+        return latency().percentileNanos(0.5) / 1000.0;
+    }
+
+    @Override
+    public double getLatencyP99Micros() {
+        return latency().percentileNanos(0.99) / 1000.0;
+    }
+
+    @Override
+    public String nodeJson(int id) {
+        for (Node node : nodes) {
+            if (node.getId() == id) {
+                return node.metrics().toJson(id);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"nodes\":").append(graph.vertexCount())
+                .append(",\"edges\":").append(graph.edgeCount()).append(",\"messages\":{");
+        String separator = "";
+        for (MessageType type : MessageType.values()) {
+            json.append(separator).append('"').append(type).append("\":{\"sent\":").append(sent(type))
+                    .append(",\"received\":").append(received(type)).append('}');
+            separator = ",";
+        }
+        long ghsTotal = getGhsTotal();
+        long bound = getGhsBound();
+        json.append("},\"total\":").append(getTotal()).append(",\"ghsTotal\":").append(ghsTotal)
+                .append(",\"ghsBound\":").append(bound)
+                .append(",\"boundRatio\":").append(String.format(Locale.ROOT, "%.4f", (double) ghsTotal / bound));
+
+        json.append(",\"deferred\":{");
+        separator = "";
+        for (MessageType type : new MessageType[]{MessageType.TEST, MessageType.CONNECT, MessageType.REPORT}) {
+            int peak = 0;
+            for (Node node : nodes) {
+                peak = Math.max(peak, node.metrics().deferredPeak(type));
+            }
+            json.append(separator).append('"').append(type).append("\":{\"now\":").append(deferred(type))
+                    .append(",\"peakPerNode\":").append(peak).append('}');
+            separator = ",";
+        }
+        json.append("},\"reordered\":").append(getReordered());
+        json.append(",\"retransmitted\":").append(getRetransmitted()).append(",\"duplicates\":").append(getDuplicates());
+        json.append(",\"latency\":").append(latency().toJson());
+
+        // Per level: how many nodes reached it, and their mean and longest stay
+        json.append(",\"phases\":[");
+        int levels = getMaxLevel() + 1;
+        for (int level = 0; level < levels; level++) {
+            int reached = 0;
+            long sum = 0;
+            long max = 0;
+            for (Node node : nodes) {
+                long[] nanos = node.metrics().levelNanos();
+                if (level < nanos.length) {
+                    reached++;
+                    sum += nanos[level];
+                    max = Math.max(max, nanos[level]);
+                }
+            }
+            json.append(level == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                    "{\"level\":%d,\"nodes\":%d,\"meanMillis\":%.3f,\"maxMillis\":%.3f}",
+                    level, reached, reached == 0 ? 0 : sum / 1e6 / reached, max / 1e6));
+        }
+        json.append("],\"perNode\":[");
+        separator = "";
+        for (Node node : nodes) {
+            json.append(separator).append("\n").append(node.metrics().toJson(node.getId()));
+            separator = ",";
+        }
+        return json.append("\n]}\n").toString();
+    }
+
+    public void writeJson(String path) {
+        try (PrintWriter out = new PrintWriter(path)) {
+            out.print(toJson());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[Metrics: " + getTotal() + " messages, " + getGhsTotal() + " of them GHS, bound " + getGhsBound() + ", latency " + latency().toJson() + "]";
+    }
+}
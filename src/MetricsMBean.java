@@ -0,0 +1,51 @@
+/**
+ * Message counts, deferred queue depths and latencies of all nodes in
+ * this JVM, registered as "ghs:type=Metrics".
+ */
+public interface MetricsMBean {
+    long getConnect();
+
+    long getInitiate();
+
+    long getTest();
+
+    long getAccept();
+
+    long getReject();
+
+    long getReport();
+
+    long getChangeRoot();
+
+    long getTotal();
+
+    // Only the seven GHS message types, which the bound is about
+    long getGhsTotal();
+
+    // 5 N log2 N + 2 E over the whole graph
+    long getGhsBound();
+
+    int getDeferredTests();
+
+    int getDeferredConnects();
+
+    int getDeferredReports();
+
+    // Messages held back until an earlier one on the same link arrived
+    long getReordered();
+
+    long getRetransmitted();
+
+    // Copies of messages that were already handled or waiting, dropped on arrival
+    long getDuplicates();
+
+    int getMaxLevel();
+
+    double getLatencyP50Micros();
+
+    double getLatencyP99Micros();
+
+    String nodeJson(int id);
+
+    String toJson();
+}
@@ -0,0 +1,84 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MST as the termination wave leaves it in one JVM. Every node but
+ * the root records the edge to its parent in the final tree as it
+ * terminates; the root also receives the edge count and total weight
+ * convergecast over the whole tree, shards included. In a single JVM the
+ * recorded edges are the whole MST.
+ */
+public final class MstResult {
+    private final int[] parent; // node id -> its parent in the final tree, 0 for the root and nodes elsewhere
+    private final int[] weight; // weight of the edge to the parent
+    private final CountDownLatch local; // nodes of this JVM not terminated yet
+    private final CountDownLatch complete = new CountDownLatch(1);
+    private volatile int edgeCount = -1;
+    private volatile long totalWeight = -1;
+
+    public MstResult(int vertexCount, int localNodes) {
+        this.parent = new int[vertexCount + 1];
+        this.weight = new int[vertexCount + 1];
+        this.local = new CountDownLatch(localNodes);
+    }
+
+    // Each node writes only its own slot, the latches publish them
+    void terminated(int node, int parent, int weight) {
+        this.parent[node] = parent;
+        this.weight[node] = weight;
+        local.countDown();
+    }
+
+    void completed(int edges, long total) {
+        this.edgeCount = edges;
+        this.totalWeight = total;
+        complete.countDown();
+    }
+
+    // Whether the root of the final tree is in this JVM and has the totals
+    public boolean isComplete() {
+        return complete.getCount() == 0;
+    }
+
+    public boolean awaitComplete(long timeout, TimeUnit unit) throws InterruptedException {
+        return complete.await(timeout, unit);
+    }
+
+    public boolean awaitLocal(long timeout, TimeUnit unit) throws InterruptedException {
+        return local.await(timeout, unit);
+    }
+
+    public int edgeCount() {
+        return edgeCount;
+    }
+
+    public long totalWeight() {
+        return totalWeight;
+    }
+
+    // The edges recorded by the nodes of this JVM
+    public SpanningForest forest() {
+        long[] pairs = new long[parent.length];
+        int count = 0;
+        long total = 0;
+        for (int v = 1; v < parent.length; v++) {
+            if (parent[v] != 0) {
+                pairs[count++] = ((long) Math.min(v, parent[v]) << 32) | Math.max(v, parent[v]);
+                total += weight[v];
+            }
+        }
+        return SpanningForest.ofPairs(Arrays.copyOf(pairs, count), total);
+    }
+
+    public void print(PrintStream out) {
+        SpanningForest forest = forest();
+        forest.print(out);
+        if (isComplete()) {
+            out.println("[MST: " + edgeCount + " edges, total weight " + totalWeight + "]");
+        } else {
+            out.println(forest + " recorded here, the totals are with the root");
+        }
+    }
+}
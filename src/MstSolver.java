@@ -0,0 +1,289 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+
+/**
+ * Centralized minimum spanning forest solvers over the same Graph the
+ * nodes are built from, breaking weight ties the way Weight does, so on
+ * a connected graph they find exactly the tree GHS must find. They serve
+ * as the oracle for --verify and as the fast path for --engine.
+ */
+public final class MstSolver {
+    private static final int PARALLEL_THRESHOLD = 1 << 12;
+
+    private MstSolver() {
+    }
+
+    public static SpanningForest solve(String algorithm, Graph graph) {
+        switch (algorithm) {
+            case "kruskal":
+                return kruskal(graph);
+            case "prim":
+                return prim(graph);
+            case "boruvka":
+                return boruvka(graph, ForkJoinPool.commonPool());
+            default:
+                throw new IllegalArgumentException("Unknown MST algorithm: " + algorithm);
+        }
+    }
+
+    // Edges in weight order, kept when they join two components of a union-find forest
+    public static SpanningForest kruskal(Graph graph) {
+        EdgeList edges = EdgeList.sorted(graph);
+        int n = graph.vertexCount();
+        int[] parent = EdgeList.identity(n + 1);
+        int[] size = new int[n + 1];
+        Arrays.fill(size, 1);
+        int[] chosen = new int[Math.max(0, n - 1)];
+        int count = 0;
+        for (int e = 0; e < edges.size && count < chosen.length; e++) {
+            if (union(parent, size, edges.lower[e], edges.higher[e])) {
+                chosen[count++] = e;
+            }
+        }
+        return SpanningForest.ofRanks(edges, chosen, count);
+    }
+
+    /**
+     * Grows a tree from every vertex not reached yet, always adding the
+     * lightest edge leaving it. Candidates sit in a binary heap indexed by
+     * vertex, so a lighter edge to a queued vertex is a decrease-key.
+     */
+    public static SpanningForest prim(Graph graph) {
+        int n = graph.vertexCount();
+        int[] from = new int[Math.max(0, n - 1)];
+        int[] to = new int[from.length];
+        int count = 0;
+        boolean[] inTree = new boolean[n + 1];
+        int[] parent = new int[n + 1];
+        VertexHeap heap = new VertexHeap(n);
+        for (int root = 1; root <= n; root++) {
+            if (inTree[root]) {
+                continue;
+            }
+            parent[root] = 0;
+            heap.offer(root, Long.MIN_VALUE, Long.MIN_VALUE);
+            while (!heap.isEmpty()) {
+                int v = heap.poll();
+                inTree[v] = true;
+                if (parent[v] != 0) {
+                    from[count] = parent[v];
+                    to[count++] = v;
+                }
+                for (int s = graph.offsets[v]; s < graph.offsets[v + 1]; s++) {
+                    int u = graph.targets[s];
+                    if (!inTree[u]) {
+                        // Same packing as Weight: the weight, then lower and higher id
+                        long high = graph.weights[s];
+                        long low = ((long) Math.min(u, v) << 32) | ((Math.max(u, v) ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+                        if (heap.offer(u, high, low)) {
+                            parent[u] = v;
+                        }
+                    }
+                }
+            }
+        }
+        return SpanningForest.ofEndpoints(graph, from, to, count);
+    }
+
+    /**
+     * Borůvka rounds on the fork-join pool: every component picks its
+     * lightest outgoing edge in parallel, then the picked edges are merged.
+     * Edge ranks make "lightest" a plain int minimum, so the picks of one
+     * round never form a cycle.
+     */
+    public static SpanningForest boruvka(Graph graph, ForkJoinPool pool) {
+        EdgeList edges = EdgeList.sorted(graph);
+        int n = graph.vertexCount();
+        int[] parent = EdgeList.identity(n + 1);
+        int[] size = new int[n + 1];
+        Arrays.fill(size, 1);
+        int[] label = new int[n + 1];
+        AtomicIntegerArray best = new AtomicIntegerArray(n + 1);
+        int[] chosen = new int[Math.max(0, n - 1)];
+        int count = 0;
+        boolean merged = true;
+        while (merged && count < chosen.length) {
+            pool.invoke(new ForEach(1, n + 1, v -> {
+                label[v] = root(parent, v);
+                best.set(v, Integer.MAX_VALUE);
+            }));
+            pool.invoke(new ForEach(0, edges.size, e -> {
+                int a = label[edges.lower[e]];
+                int b = label[edges.higher[e]];
+                if (a != b) {
+                    lowerTo(best, a, e);
+                    lowerTo(best, b, e);
+                }
+            }));
+            merged = false;
+            for (int c = 1; c <= n; c++) {
+                int e = best.get(c);
+                if (label[c] == c && e != Integer.MAX_VALUE && union(parent, size, edges.lower[e], edges.higher[e])) {
+                    chosen[count++] = e;
+                    merged = true;
+                }
+            }
+        }
+        return SpanningForest.ofRanks(edges, chosen, count);
+    }
+
+    private static void lowerTo(AtomicIntegerArray best, int i, int value) {
+        int current;
+        while (value < (current = best.get(i)) && !best.compareAndSet(i, current, value)) {
+            // another thread lowered it first, compare again
+        }
+    }
+
+    // Union by size, so trees stay log n deep even without compression
+    private static boolean union(int[] parent, int[] size, int u, int v) {
+        int a = find(parent, u);
+        int b = find(parent, v);
+        if (a == b) {
+            return false;
+        }
+        if (size[a] < size[b]) {
+            int t = a;
+            a = b;
+            b = t;
+        }
+        parent[b] = a;
+        size[a] += size[b];
+        return true;
+    }
+
+    // Path halving; only called from one thread at a time
+    private static int find(int[] parent, int v) {
+        while (parent[v] != v) {
+            parent[v] = parent[parent[v]];
+            v = parent[v];
+        }
+        return v;
+    }
+
+    // Read-only find, safe to run in parallel
+    private static int root(int[] parent, int v) {
+        while (parent[v] != v) {
+            v = parent[v];
+        }
+        return v;
+    }
+
+    private static final class ForEach extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final IntConsumer action;
+
+        ForEach(int from, int to, IntConsumer action) {
+            this.from = from;
+            this.to = to;
+            this.action = action;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    action.accept(i);
+                }
+            } else {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ForEach(from, middle, action), new ForEach(middle, to, action));
+            }
+        }
+    }
+
+    /**
+     * Binary min-heap of vertices keyed by a packed Weight (high, low),
+     * with each vertex's position tracked so its key can be lowered.
+     */
+    private static final class VertexHeap {
+        private final int[] heap;
+        private final int[] position; // -1 when not queued
+        private final long[] high;
+        private final long[] low;
+        private int size = 0;
+
+        VertexHeap(int n) {
+            heap = new int[n];
+            position = new int[n + 1];
+            Arrays.fill(position, -1);
+            high = new long[n + 1];
+            low = new long[n + 1];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        // Queues the vertex or lowers its key; returns whether the key changed
+        boolean offer(int v, long keyHigh, long keyLow) {
+            if (position[v] < 0) {
+                position[v] = size;
+                heap[size++] = v;
+            } else if (!less(keyHigh, keyLow, high[v], low[v])) {
+                return false;
+            }
+            high[v] = keyHigh;
+            low[v] = keyLow;
+            up(position[v]);
+            return true;
+        }
+
+        int poll() {
+            int top = heap[0];
+            position[top] = -1;
+            size--;
+            if (size > 0) {
+                heap[0] = heap[size];
+                position[heap[0]] = 0;
+                down(0);
+            }
+            return top;
+        }
+
+        private void up(int i) {
+            int v = heap[i];
+            while (i > 0) {
+                int p = (i - 1) >>> 1;
+                int u = heap[p];
+                if (!less(high[v], low[v], high[u], low[u])) {
+                    break;
+                }
+                heap[i] = u;
+                position[u] = i;
+                i = p;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private void down(int i) {
+            int v = heap[i];
+            while (true) {
+                int c = 2 * i + 1;
+                if (c >= size) {
+                    break;
+                }
+                if (c + 1 < size && less(high[heap[c + 1]], low[heap[c + 1]], high[heap[c]], low[heap[c]])) {
+                    c++;
+                }
+                int u = heap[c];
+                if (!less(high[u], low[u], high[v], low[v])) {
+                    break;
+                }
+                heap[i] = u;
+                position[u] = i;
+                i = c;
+            }
+            heap[i] = v;
+            position[v] = i;
+        }
+
+        private static boolean less(long h1, long l1, long h2, long l2) {
+            return h1 != h2 ? h1 < h2 : l1 < l2;
+        }
+    }
+}
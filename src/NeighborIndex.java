@@ -0,0 +1,51 @@
+import java.util.Arrays;
+
+/**
+ * Open-addressing map from a neighbor's id to the position of the edge
+ * leading to it in a node's edge table. Keys and values are primitive, so
+ * lookups never box or allocate.
+ */
+public class NeighborIndex {
+    private static final int EMPTY = -1;
+
+    private final int[] keys;
+    private final int[] values;
+    private final int mask;
+
+    public NeighborIndex(int expectedSize) {
+        int capacity = 2;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+        Arrays.fill(values, EMPTY);
+    }
+
+    public void put(int key, int value) {
+        int slot = slot(key);
+        while (values[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    // Returns -1 if the key is absent
+    public int get(int key) {
+        int slot = slot(key);
+        while (values[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return EMPTY;
+    }
+
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
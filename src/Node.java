@@ -1,19 +1,17 @@
-
 import java.io.Serializable;
-import java.net.MalformedURLException;
-import java.rmi.Naming;
-import java.rmi.NotBoundException;
 import java.rmi.RemoteException;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
 
-public class Node implements Runnable, Serializable, INode {
-    private final List<Edge> edges;
+public class Node implements Runnable, Serializable {
+    private static final EdgeState[] EDGE_STATES = EdgeState.values();
+
+    private Edge[] edges; // sorted on increasing weight, replaced when the graph changes
     private final Integer id;
+    private final int job; // the GHS run this node is part of; a vertex has one node per job
     private NodeState state = NodeState.SLEEPING;
     private Integer fragmentLevel = 0; // the level of the fragment this node belongs to
     private Weight fragmentName = null; // the name of the fragment this node belongs to
@@ -22,43 +20,282 @@ public class Node implements Runnable, Serializable, INode {
     private Edge bestEdge; // the edge leading towards the best candidate for the moe
     private Weight bestWeight; // the weight of the best candidate for the moe
     private Edge testEdge; // the edge this node is currently testing for the moe
-    private Map<Edge, EdgeState> edgeStates;
-    private final Integer NETWORK_DELAY = 150;
-    private final ArrayList<ReportMessage> reportQueue;
-    private final ArrayList<ConnectMessage> connectQueue;
-    private final ArrayList<TestMessage> testQueue;
+    private byte[] edgeStates; // EdgeState ordinals, aligned with edges
+    private NeighborIndex edgeIndex; // neighbor id -> position in edges
+    private int testCursor = 0; // edges before the cursor are no longer UNKNOWN
+    // Deferred messages, indexed by the state change that releases them
+    private final LevelQueue<TestMessage> deferredTests; // by the level of the test
+    private ConnectMessage[] deferredConnects; // by edge, until the edge is no longer UNKNOWN
+    private final LevelQueue<ConnectMessage> deferredConnectLevels; // by value + 1, the level that absorbs them
+    private final ArrayDeque<ReportMessage> deferredReports; // until the node leaves FIND
+    private final ArrayDeque<Message> released; // handled right after the current message
+    // Sequenced links: each directed link numbers its messages, the receiver handles them in that order
+    private int[] sentSeqs; // by edge, the last number sent to the neighbor
+    private int[] handledSeqs; // by edge, the last number handled from the neighbor
+    private final Map<Long, Message> early = new HashMap<>(); // arrived before their predecessor, by (from, seq)
+    private final Map<Integer, int[]> retiredSeqs = new HashMap<>(); // {sent, handled} of deleted edges, by neighbor
+    private Retransmitter retransmitter; // keeps sent messages until they are acked, null when the links are trusted
+    private boolean retryScheduled;
+    private Edge probeParent; // the edge the last probe came in on, a swap goes back along it
+    private Runnable onQuiet = () -> { }; // at the root once the tree is collected, or after an update that needs no repair
+    // Termination wave: HALT goes down the final tree, the MST size comes back up
+    private Edge terminationParent; // towards the root of the final tree, null at the root
+    private int pendingResults; // RESULTs still expected from below
+    private int subtreeEdges;
+    private long subtreeWeight;
+    private MstResult result; // where this JVM collects the tree
+    private NodeMetrics metrics; // null unless metrics are collected
+    private long handled; // messages handled, read by the watchdog
+    private final Mailbox<Message> mailbox;
+    private final Transport transport;
+
+    public Node(Integer id, List<Edge> edges, Transport transport) {
+        this(0, id, edges.toArray(new Edge[0]), transport);
+    }
+
+    public Node(Integer id, Graph graph, Transport transport) {
+        this(0, id, graph, transport);
+    }
+
+    public Node(int job, Integer id, Graph graph, Transport transport) {
+        this(job, id, graph.edgesOf(id), transport);
+    }
 
-    public Node(Integer id, List<Edge> edges) {
+    private Node(int job, Integer id, Edge[] edges, Transport transport) {
         this.id = id;
-        this.reportQueue = new ArrayList<>();
-        this.connectQueue = new ArrayList<>();
-        this.testQueue = new ArrayList<>();
-        // Create list of edges connected to this node
-        Collections.sort(edges);
-        this.edges = Collections.unmodifiableList(edges);
-        System.out.println(this.id + ": Created with edge list " + this.edges);
+        this.job = job;
+        this.transport = transport;
+        this.deferredTests = new LevelQueue<>();
+        this.deferredConnectLevels = new LevelQueue<>();
+        this.deferredReports = new ArrayDeque<>();
+        this.released = new ArrayDeque<>();
+        this.mailbox = new Mailbox<>(this::process);
+        // Create table of edges connected to this node, with states all UNKNOWN (ordinal 0)
+        setEdges(edges, new byte[edges.length]);
+        EventLog.log(EventType.CREATED, this.id, this.edges.length, 0, 0);
+    }
 
-        // Keep a list of states corresponding to the above edges
-        HashMap<Edge, EdgeState> edgeStates = new HashMap<>();
-        this.edges.forEach(e -> edgeStates.put(e, EdgeState.UNKNOWN));
-        this.edgeStates = Collections.unmodifiableMap(edgeStates);
+    // Sorts the edges on weight, keeping every state with its edge, and rebuilds the index
+    private void setEdges(Edge[] edges, byte[] states) {
+        Integer[] order = new Integer[edges.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> edges[a].compareTo(edges[b]));
+        ConnectMessage[] connects = this.deferredConnects;
+        int[] sent = this.sentSeqs;
+        int[] handled = this.handledSeqs;
+        Edge[] previous = this.edges;
+        NeighborIndex index = this.edgeIndex;
+        this.edges = new Edge[edges.length];
+        this.edgeStates = new byte[edges.length];
+        this.deferredConnects = new ConnectMessage[edges.length];
+        this.sentSeqs = new int[edges.length];
+        this.handledSeqs = new int[edges.length];
+        this.edgeIndex = new NeighborIndex(edges.length);
+        for (int i = 0; i < order.length; i++) {
+            this.edges[i] = edges[order[i]];
+            this.edgeStates[i] = states[order[i]];
+            Integer neighbor = getReceiver(this.edges[i]);
+            this.edgeIndex.put(neighbor, i);
+            int old = index == null ? -1 : index.get(neighbor);
+            if (old >= 0) {
+                this.deferredConnects[i] = connects[old];
+                this.sentSeqs[i] = sent[old];
+                this.handledSeqs[i] = handled[old];
+            } else if (retiredSeqs.containsKey(neighbor)) {
+                // An edge that comes back carries on numbering where it stopped, as its other end does
+                int[] seqs = retiredSeqs.remove(neighbor);
+                this.sentSeqs[i] = seqs[0];
+                this.handledSeqs[i] = seqs[1];
+            }
+        }
+        for (int i = 0; previous != null && i < previous.length; i++) {
+            Integer neighbor = getReceiver(previous[i]);
+            if (this.edgeIndex.get(neighbor) < 0) {
+                retiredSeqs.put(neighbor, new int[]{sent[i], handled[i]});
+            }
+        }
+        this.testCursor = 0;
     }
 
-    @Override
-    public void receiveInitiate(Integer id, Integer L, Weight F, NodeState S) throws RemoteException {
+    // Runs when the network goes quiet, the result is complete then
+    void onQuiet(Runnable action) {
+        this.onQuiet = action;
+    }
+
+    void reportTo(MstResult result) {
+        this.result = result;
+    }
+
+    // Acknowledge every sequenced message and send again what is not acknowledged in time
+    void reliable(Retransmitter retransmitter) {
+        this.retransmitter = retransmitter;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public int getJob() {
+        return job;
+    }
+
+    // Null unless collectMetrics() was called before the run started
+    public NodeMetrics metrics() {
+        return metrics;
+    }
+
+    public void collectMetrics() {
+        this.metrics = new NodeMetrics();
+    }
+
+    public long handled() {
+        return handled;
+    }
+
+    void post(Message message) {
+        mailbox.post(message);
+    }
+
+    /**
+     * Handles the messages of each link in the order they were sent. A
+     * message that overtook an earlier one on its link waits until that one
+     * is handled; after each message come the messages that were waiting for
+     * it, so a link can have any number of messages in flight.
+     */
+    void process(Message message) {
+        if (message.seq > 0) {
+            int expected = handledSeq(message.from) + 1;
+            if (message.seq < expected) {
+                // A retransmission of a message that was handled, its ack may have been lost
+                if (metrics != null) {
+                    metrics.duplicate();
+                }
+                acknowledge(message.from);
+                return;
+            } else if (message.seq > expected) {
+                boolean first = early.putIfAbsent(linkSeq(message.from, message.seq), message) == null;
+                if (metrics != null && first) {
+                    metrics.reorder();
+                } else if (metrics != null) {
+                    metrics.duplicate();
+                }
+                return;
+            }
+        }
+        for (Message next = message; next != null; next = nextOnLink(next)) {
+            handleInOrder(next);
+        }
+        if (message.seq > 0) {
+            acknowledge(message.from);
+        }
+    }
+
+    // Handle a message, then every deferred message its state changes released, in release order
+    private void handleInOrder(Message message) {
+        if (message.seq > 0) {
+            int index = this.edgeIndex.get(message.from);
+            if (index >= 0) {
+                this.handledSeqs[index] = message.seq;
+            } else {
+                // The edge is already gone here, but not yet at the sender
+                retiredSeqs.computeIfAbsent(message.from, from -> new int[2])[1] = message.seq;
+            }
+        }
+        handled++;
+        if (metrics != null) {
+            metrics.received(message);
+        }
+        EventLog.log(EventType.RECEIVE, this.id, message.type().ordinal(), message.from, 0);
+        message.handle(this);
+        Message next;
+        while ((next = released.poll()) != null) {
+            next.handle(this);
+        }
+    }
+
+    private Message nextOnLink(Message message) {
+        return message.seq == 0 || early.isEmpty() ? null : early.remove(linkSeq(message.from, message.seq + 1));
+    }
+
+    private int handledSeq(Integer from) {
+        int index = this.edgeIndex.get(from);
+        if (index >= 0) {
+            return this.handledSeqs[index];
+        }
+        int[] seqs = retiredSeqs.get(from);
+        return seqs == null ? 0 : seqs[1];
+    }
+
+    // One cumulative ack for everything handled on the link so far
+    private void acknowledge(Integer from) {
+        if (retransmitter != null) {
+            send(from, new AckMessage(this.id, handledSeq(from)));
+        }
+    }
+
+    void handleAck(Integer from, Integer acked) {
+        if (retransmitter != null) {
+            retransmitter.acked(from, acked);
+        }
+    }
+
+    void handleRetry() {
+        this.retryScheduled = false;
+        retransmitter.due(nowMillis(), this::retransmit, this::giveUp);
+        scheduleRetry();
+    }
+
+    private void scheduleRetry() {
+        if (!retryScheduled && retransmitter.pending() > 0) {
+            retryScheduled = true;
+            Scheduler.schedule(() -> mailbox.post(new RetryMessage(this.id)), retransmitter.nextDue() - nowMillis());
+        }
+    }
+
+    private void retransmit(Integer receiverId, Message message) {
+        if (metrics != null) {
+            metrics.retransmit();
+        }
+        EventLog.log(EventType.RETRANSMIT, this.id, message.type().ordinal(), receiverId, message.seq);
+        transmit(receiverId, message);
+    }
+
+    private void giveUp(Integer receiverId, Message message) {
+        EventLog.log(EventType.LOST, this.id, message.type().ordinal(), receiverId, message.seq);
+        System.err.println("Node " + this.id + " gave up on " + message.type() + " #" + message.seq + " to " + receiverId);
+    }
+
+    private static long nowMillis() {
+        return System.nanoTime() / 1_000_000;
+    }
+
+    private static long linkSeq(int from, int seq) {
+        return ((long) from << 32) | (seq & 0xFFFFFFFFL);
+    }
+
+    void handleInitiate(Integer id, Integer L, Weight F, NodeState S) {
+        initiate(identifyEdge(id), L, F, S, null);
+    }
+
+    // A repair passes the weight of the edge that left the tree as cut, a normal Initiate null
+    private void initiate(Edge j, Integer L, Weight F, NodeState S, Weight cut) {
         // Fragment IV
-        Edge j = identifyEdge(id);
-        this.fragmentLevel = L;
+        setFragmentLevel(L);
         this.fragmentName = F;
-        this.state = S;
-        checkAllQueues();
-        System.out.println(this.id + ": State: " + this.state + ": " + this.findCount);
+        setState(S);
         this.inBranch = j;
         this.bestEdge = null;
         this.bestWeight = Weight.INFINITE;
-        for (Edge i : this.edges) {
-            if (!i.equals(j) && this.edgeStates.get(i) == EdgeState.IN_MST) {
-                sendInitiate(i, L, F, S);
+        for (int k = 0; k < this.edges.length; k++) {
+            Edge i = this.edges[k];
+            if (i != j && EDGE_STATES[this.edgeStates[k]] == EdgeState.IN_MST) {
+                if (cut != null) {
+                    send(i, new RepairMessage(this.id, L, F, cut));
+                } else {
+                    sendInitiate(i, L, F, S);
+                }
                 if (this.state == NodeState.FIND) {
                     findCount = findCount + 1;
                 }
@@ -71,118 +308,82 @@ public class Node implements Runnable, Serializable, INode {
         }
     }
 
-    private void checkAllQueues() throws RemoteException {
-        removeFromConnectQueue();
-        removeFromTestQueue();
-        removeFromReportQueue();
+    private void setFragmentLevel(Integer level) {
+        this.fragmentLevel = level;
+        if (metrics != null) {
+            metrics.enterLevel(level);
+        }
+        // Tests from this level or below can be answered, connects from below this level absorbed
+        deferredTests.releaseUpTo(level, this::release);
+        deferredConnectLevels.releaseUpTo(level, m -> {
+            int index = this.edgeIndex.get(m.from);
+            // A connect over an edge deleted since it was deferred is dropped
+            if (index >= 0 && deferredConnects[index] == m) {
+                deferredConnects[index] = null;
+                release(m);
+            }
+        });
     }
 
-    private synchronized void removeFromReportQueue() {
-        if (!reportQueue.isEmpty() && this.state != NodeState.FIND) {
-            System.out.println(this.id + ": Popping a message from the report queue");
-            ReportMessage m = reportQueue.get(0);
-            reportQueue.remove(m);
-
-            this.receiveReport(m.from, m.weight);
-            removeFromReportQueue();
+    private void setState(NodeState state) {
+        this.state = state;
+        if (EventLog.enabled(EventType.STATE)) {
+            EventLog.log(EventType.STATE, this.id, state.ordinal(), this.fragmentLevel,
+                    this.findCount == null ? -1 : this.findCount);
         }
-    }
-
-    private synchronized void removeFromTestQueue() throws RemoteException {
-            if (!testQueue.isEmpty()) {
-                TestMessage tm = testQueue.get(0);
-                if (tm.level <= this.fragmentLevel) {
-                    System.out.println(this.id + ": Popping a message from the test queue");
-                    testQueue.remove(tm);
-                    this.receiveTest(tm.from, tm.level, tm.weight);
-                    removeFromTestQueue();
-                }
+        if (state != NodeState.FIND) {
+            ReportMessage m;
+            while ((m = deferredReports.poll()) != null) {
+                release(m);
             }
+        }
     }
 
-    private synchronized void removeFromConnectQueue() {
-        if (!connectQueue.isEmpty()) {
-            ConnectMessage cm = null;
-            for (ConnectMessage m : connectQueue) {
-                if (this.edgeStates.get(m) != EdgeState.UNKNOWN) {
-                    cm = m;
-                    break;
-                }
-            }
-            if (cm != null) {
-                System.out.println("Popping a message from the connect queue");
-                connectQueue.remove(cm);
-                this.receiveConnect(cm.from, cm.value);
-                removeFromConnectQueue();
-            }
+    private void release(Message message) {
+        EventLog.log(EventType.RELEASE, this.id, message.type().ordinal(), message.from, 0);
+        if (metrics != null) {
+            metrics.deferred(message.type(), -1);
         }
+        released.add(message);
     }
 
-    @Override
-    public void receiveTest(Integer from, Integer l, Weight FN) throws RemoteException {
+    void handleTest(Integer from, Integer l, Weight FN) {
         // Fragment VI
         if (this.state == NodeState.SLEEPING) {
             wakeup();
         }
         if (l > this.fragmentLevel) {
-            this.testQueue.add(new TestMessage(from, l, FN));
+            this.deferredTests.add(l, new TestMessage(from, l, FN));
+            if (metrics != null) {
+                metrics.deferred(MessageType.TEST, 1);
+            }
+            EventLog.log(EventType.DEFER, this.id, MessageType.TEST.ordinal(), from, 0);
         } else {
             Edge j = identifyEdge(from);
             if (!FN.equals(this.fragmentName)) {
                 sendAccept(j);
             } else {
-                if (this.edgeStates.get(j) == EdgeState.UNKNOWN) {
+                if (stateOf(j) == EdgeState.UNKNOWN) {
                     this.updateEdgeState(j, EdgeState.NOT_IN_MST);
-                } else if (!j.equals(this.testEdge)) {
+                }
+                if (!j.equals(this.testEdge)) {
                     sendReject(j);
                 } else {
                     test();
                 }
             }
-            checkAllQueues();
         }
     }
 
     private void sendReject(Edge j) {
-        Integer receiveID = getReceiver(j);
-        INode receiver = findNode(receiveID);
-        if (receiver == null) {
-            return;
-        }
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(random.nextInt(NETWORK_DELAY));
-                receiver.receiveReject(this.id);
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            } catch (InterruptedException ignored) {
-            }
-        };
-        new Thread(send).start();
+        send(j, new RejectMessage(this.id));
     }
 
     private void sendAccept(Edge j) {
-        Integer receiverId = getReceiver(j);
-        INode receiver = findNode(receiverId);
-        if (receiver == null) {
-            return;
-        }
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(random.nextInt(NETWORK_DELAY));
-                receiver.receiveAccept(this.id);
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            } catch (InterruptedException ignored) {
-            }
-        };
-        new Thread(send).start();
+        send(j, new AcceptMessage(this.id));
     }
 
-    @Override
-    public void receiveAccept(Integer from) {
+    void handleAccept(Integer from) {
         // Fragment VIII
         Edge j = identifyEdge(from);
         this.testEdge = null;
@@ -197,54 +398,34 @@ public class Node implements Runnable, Serializable, INode {
     private void report() {
         // Fragment IX
         if (this.findCount == 0 && this.testEdge == null) {
-            this.state = NodeState.FOUND;
-            System.out.println(this.id + ": State: " + this.state + ": " + this.findCount);
-            Integer receiver = getReceiver(inBranch);
-            sendReport(receiver, this.bestWeight);
-            try {
-                checkAllQueues();
-            } catch (RemoteException e) {
-                e.printStackTrace();
+            setState(NodeState.FOUND);
+            if (inBranch != null) {
+                Integer receiver = getReceiver(inBranch);
+                sendReport(receiver, this.bestWeight);
+            } else if (bestWeight.equals(Weight.INFINITE)) {
+                // The root of a repair found nothing across the cut, the graph fell apart
+                HALT(null, true);
+            } else {
+                // Both roots of a repair find the same lightest edge across the cut and connect over it
+                changeRoot();
             }
         }
     }
 
     private void sendReport(Integer receiverId, Weight bestWeight) {
-        INode receiver = findNode(receiverId);
-        if (receiver == null) {
-            return;
-        }
-        Weight W = new Weight(bestWeight);
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(NETWORK_DELAY);
-                receiver.receiveReport(this.id, W);
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            } catch (InterruptedException ignored) {
-            }
-        };
-        new Thread(send).start();
+        send(receiverId, new ReportMessage(this.id, bestWeight));
     }
 
-    @Override
-    public void receiveReject(Integer from) {
+    void handleReject(Integer from) {
         // Fragment VII
         Edge j = identifyEdge(from);
-        if (this.edgeStates.get(j) == EdgeState.UNKNOWN) {
+        if (stateOf(j) == EdgeState.UNKNOWN) {
             this.updateEdgeState(j, EdgeState.NOT_IN_MST);
         }
-        try {
-            checkAllQueues();
-        } catch (RemoteException e) {
-            e.printStackTrace();
-        }
         test();
     }
 
-    @Override
-    public void receiveReport(Integer from, Weight w) {
+    void handleReport(Integer from, Weight w) {
         // Fragment X
         Edge j = identifyEdge(from);
         if (!j.equals(inBranch)) {
@@ -256,29 +437,29 @@ public class Node implements Runnable, Serializable, INode {
             report();
         } else {
             if (this.state == NodeState.FIND) {
-                this.reportQueue.add(new ReportMessage(from, w));
+                this.deferredReports.add(new ReportMessage(from, w));
+                if (metrics != null) {
+                    metrics.deferred(MessageType.REPORT, 1);
+                }
+                EventLog.log(EventType.DEFER, this.id, MessageType.REPORT.ordinal(), from, 0);
             } else {
                 if (w.compareTo(bestWeight) > 0) {
                     changeRoot();
                 } else {
                     if (w.equals(bestWeight) && bestWeight.equals(Weight.INFINITE)) {
-                        HALT();
+                        // Both core nodes get here, the lower one becomes the root of the final tree
+                        HALT(inBranch, this.id < getReceiver(inBranch));
                     } else {
-                        System.out.println("Report: nothing happened");
+                        EventLog.log(EventType.REPORT_IGNORED, this.id, from, 0, 0);
                     }
                 }
             }
         }
-        try {
-            checkAllQueues();
-        } catch (RemoteException e) {
-            e.printStackTrace();
-        }
     }
 
     private void changeRoot() {
         // Fragment XI
-        if (this.edgeStates.get(bestEdge) == EdgeState.IN_MST) {
+        if (stateOf(bestEdge) == EdgeState.IN_MST) {
             sendChangeRoot(bestEdge);
         } else {
             this.sendConnect(bestEdge, this.fragmentLevel);
@@ -287,39 +468,68 @@ public class Node implements Runnable, Serializable, INode {
     }
 
     private void sendChangeRoot(Edge j) {
-        Integer receiverID = getReceiver(j);
-        INode receiver = findNode(receiverID);
-        if (receiver == null) {
-            return;
+        send(j, new ChangeRootMessage(this.id));
+    }
+
+    private void HALT(Edge core, boolean root) {
+        // The state stays FOUND, a later repair must not wake this node up again
+        EventLog.log(EventType.HALT, this.id, this.fragmentLevel, 0, 0);
+        // The lower core node waits for the other half of the tree across the core edge
+        if (root) {
+            terminate(null, core);
+        } else {
+            terminate(core, null);
         }
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(random.nextInt(NETWORK_DELAY));
-                receiver.receiveChangeRoot(this.id);
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            } catch (InterruptedException ignored) {
+    }
+
+    // Passes the termination down every tree edge but the one it came from and the core edge
+    private void terminate(Edge parent, Edge core) {
+        this.terminationParent = parent;
+        this.pendingResults = core != null ? 1 : 0;
+        this.subtreeEdges = 0;
+        this.subtreeWeight = 0;
+        for (int k = 0; k < this.edges.length; k++) {
+            Edge i = this.edges[k];
+            if (i != parent && i != core && EDGE_STATES[this.edgeStates[k]] == EdgeState.IN_MST) {
+                send(i, new TerminateMessage(this.id));
+                this.pendingResults++;
             }
-        };
-        new Thread(send).start();
+        }
+        if (this.pendingResults == 0) {
+            terminated();
+        }
     }
 
-    private void HALT() {
-        // TODO
-        // misschien iets van een flag zodat er niet meer iets gedaan wordt met berichten?
-//        reportQueue.clear();
+    void handleTerminate(Integer from) {
+        terminate(identifyEdge(from), null);
+    }
 
-        System.out.println("HALT!");
-        this.state = NodeState.SLEEPING;
-        System.out.println(this.id + ": State: " + this.state + ": " + this.findCount);
-//        this.printStatus();
-//        Thread.currentThread().interrupt();
-        System.exit(100);
+    void handleResult(Integer from, Integer edges, Long weight) {
+        this.subtreeEdges += edges;
+        this.subtreeWeight += weight;
+        if (--this.pendingResults == 0) {
+            terminated();
+        }
     }
 
-    @Override
-    public void receiveConnect(Integer from, Integer value) {
+    // The whole subtree has reported; every node counts the edge to its parent, the core edge included
+    private void terminated() {
+        if (terminationParent != null) {
+            int weight = terminationParent.weight.getWeight();
+            if (result != null) {
+                result.terminated(this.id, getReceiver(terminationParent), weight);
+            }
+            send(terminationParent, new ResultMessage(this.id, this.subtreeEdges + 1, this.subtreeWeight + weight));
+        } else {
+            if (result != null) {
+                result.terminated(this.id, 0, 0);
+                result.completed(this.subtreeEdges, this.subtreeWeight);
+            }
+            onQuiet.run();
+        }
+    }
+
+    void handleConnect(Integer from, Integer value) {
         // Fragment III
         if (this.state == NodeState.SLEEPING) {
             wakeup();
@@ -332,105 +542,73 @@ public class Node implements Runnable, Serializable, INode {
                 this.findCount += 1;
             }
         } else {
-            if (this.edgeStates.get(j) == EdgeState.UNKNOWN) {
-                this.connectQueue.add(new ConnectMessage(from, value, j));
+            if (stateOf(j) == EdgeState.UNKNOWN) {
+                ConnectMessage m = new ConnectMessage(from, value);
+                this.deferredConnects[indexOf(j)] = m;
+                this.deferredConnectLevels.add(value + 1, m);
+                if (metrics != null) {
+                    metrics.deferred(MessageType.CONNECT, 1);
+                }
+                EventLog.log(EventType.DEFER, this.id, MessageType.CONNECT.ordinal(), from, 0);
             } else {
                 sendInitiate(j, fragmentLevel + 1, j.weight, NodeState.FIND);
             }
         }
-        try {
-            checkAllQueues();
-        } catch (RemoteException e) {
-            e.printStackTrace();
-        }
     }
 
     private void sendInitiate(Edge j, Integer fragmentLevel, Weight fragmentName, NodeState state) {
-        Integer receiverID = getReceiver(j);
-        INode receiver = findNode(receiverID);
-        if (receiver == null) {
-            return;
-        }
-        Weight FN = new Weight(fragmentName);
-        NodeState NS = state;
-
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(random.nextInt(NETWORK_DELAY));
-                receiver.receiveInitiate(this.id, fragmentLevel, FN, NS);
-            } catch (InterruptedException ignored) {
-            } catch (RemoteException e) {
-                e.printStackTrace();
-            }
-        };
-        new Thread(send).start();
+        send(j, new InitiateMessage(this.id, fragmentLevel, fragmentName, state));
     }
 
-    @Override
-    public void receiveChangeRoot(Integer from) throws RemoteException {
+    void handleChangeRoot(Integer from) {
         changeRoot();
-        try {
-            checkAllQueues();
-        } catch (RemoteException e) {
-            e.printStackTrace();
-        }
     }
 
     @Override
     public void run() {
         // Code Fragment I : spontaneously starting
-        Random random = new Random();
-        try {
-            Thread.sleep(random.nextInt(1000));
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        mailbox.post(new WakeupMessage(this.id));
+    }
+
+    void handleWakeup() {
         if (this.state == NodeState.SLEEPING) {
-            System.out.println(this.id + ": Starting up");
+            EventLog.log(EventType.WAKEUP, this.id, 0, 0, 0);
             wakeup();
         }
     }
 
     private void wakeup() {
         // Code Fragment II : Waking up
-        Edge j = this.edges.get(0); // Edge list should be sorted on increasing weight
+        if (this.edges.length == 0) {
+            // A vertex without edges is a finished fragment of its own, with no tree to report to
+            setFragmentLevel(0);
+            setState(NodeState.FOUND);
+            if (result != null) {
+                result.terminated(this.id, 0, 0);
+            }
+            return;
+        }
+        Edge j = this.edges[0]; // Edge table is sorted on increasing weight
         updateEdgeState(j, EdgeState.IN_MST);
+        setFragmentLevel(0);
+        setState(NodeState.FOUND);
         this.findCount = 0;
         sendConnect(j, 0);
     }
 
     private void sendConnect(Edge e, Integer value) {
-        Integer receiverId = getReceiver(e);
-        INode receiver = findNode(receiverId);
-        if (receiver == null) {
-            return; // is just nothing doing anything reasonable? what is a reasonable fallback?
-        }
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(random.nextInt(NETWORK_DELAY));
-                receiver.receiveConnect(this.id, value);
-            } catch (InterruptedException ignored) {
-            } catch (RemoteException e1) {
-                e1.printStackTrace();
-            }
-        };
-        new Thread(send).start();
+        send(e, new ConnectMessage(this.id, value));
     }
 
-    private void test() {
+    void test() {
         // Fragment V
-        Weight minimumWeight = new Weight(0, 0, 0);
-        Edge minimumEdge = null;
-        for (Edge e : this.edges) {
-            if (this.edgeStates.get(e) == EdgeState.UNKNOWN && e.weight.compareTo(minimumWeight) < 0) {
-                minimumWeight = e.weight;
-                minimumEdge = e;
-            }
+        // Edges only become UNKNOWN again in a repair, which resets the cursor, so the lightest UNKNOWN edge is at or after the cursor
+        while (testCursor < this.edges.length && EDGE_STATES[this.edgeStates[testCursor]] != EdgeState.UNKNOWN) {
+            testCursor++;
         }
-        if (minimumEdge != null) {
-            sendTest(minimumEdge, fragmentLevel, fragmentName);
+        if (testCursor < this.edges.length) {
+            this.testEdge = this.edges[testCursor];
+            sendTest(this.testEdge, fragmentLevel, fragmentName);
         } else {
             this.testEdge = null;
             report();
@@ -438,29 +616,58 @@ public class Node implements Runnable, Serializable, INode {
     }
 
     private void sendTest(Edge e, Integer fragmentLevel, Weight fragmentName) {
-        Integer receiverId = getReceiver(e);
-        INode receiver = findNode(receiverId);
-        if (receiver == null) {
-            return;
+        send(e, new TestMessage(this.id, fragmentLevel, fragmentName));
+    }
+
+    private void send(Edge e, Message message) {
+        send(getReceiver(e), message);
+    }
+
+    private void send(Integer receiverId, Message message) {
+        int index = this.edgeIndex.get(receiverId);
+        // Acks are not sequenced, a lost ack is made up for by the next one
+        if (index >= 0 && message.type() != MessageType.ACK) {
+            message.seq = ++this.sentSeqs[index];
+            if (retransmitter != null) {
+                retransmitter.sent(receiverId, message, nowMillis());
+                scheduleRetry();
+            }
         }
-        Weight FN = new Weight(fragmentName);
-        Runnable send = () -> {
-            try {
-                Random random = new Random();
-                Thread.sleep(random.nextInt(NETWORK_DELAY));
-                receiver.receiveTest(this.id, fragmentLevel, FN);
-            } catch (InterruptedException ignored) {
-            } catch (RemoteException e1) {
-                e1.printStackTrace();
+        message.job = this.job;
+        if (metrics != null) {
+            metrics.sent(message);
+        }
+        EventLog.log(EventType.SEND, this.id, message.type().ordinal(), receiverId, 0);
+        transmit(receiverId, message);
+    }
+
+    private void transmit(Integer receiverId, Message message) {
+        try {
+            transport.send(receiverId, message);
+        } catch (RemoteException e) {
+            // A message that is kept for retransmission goes out again later
+            if (retransmitter == null || message.seq == 0) {
+                e.printStackTrace();
             }
-        };
-        new Thread(send).start();
+        }
+    }
+
+    void updateEdgeState(Edge edge, EdgeState state) {
+        int index = indexOf(edge);
+        this.edgeStates[index] = (byte) state.ordinal();
+        // A connect deferred on a basic edge is answered once the edge is decided
+        if (state != EdgeState.UNKNOWN && deferredConnects[index] != null) {
+            release(deferredConnects[index]);
+            deferredConnects[index] = null;
+        }
     }
 
-    private void updateEdgeState(Edge edge, EdgeState state) {
-        Map<Edge, EdgeState> tempMap = new HashMap<>(this.edgeStates);
-        tempMap.put(edge, state);
-        this.edgeStates = Collections.unmodifiableMap(tempMap);
+    private EdgeState stateOf(Edge edge) {
+        return EDGE_STATES[this.edgeStates[indexOf(edge)]];
+    }
+
+    private int indexOf(Edge edge) {
+        return this.edgeIndex.get(getReceiver(edge));
     }
 
     private Integer getReceiver(Edge e) {
@@ -474,46 +681,183 @@ public class Node implements Runnable, Serializable, INode {
         }
     }
 
-    private INode findNode(Integer nodeId) {
-        INode node = null;
-        try {
-            node = (INode) Naming.lookup("//localhost:1099/p" + nodeId);
-        } catch (NotBoundException e) {
-            try {
-                node = (INode) Naming.lookup("//ip:1099/p" + nodeId);
-            } catch (NotBoundException | MalformedURLException | RemoteException ignored) {
+    Edge identifyEdge(Integer from) {
+//        System.out.println(this.id + ": Trying to find an edge to or from " + from);
+        int index = this.edgeIndex.get(from);
+        if (index >= 0) {
+            return this.edges[index];
+        }
+        throw new RuntimeException("Node " + this.id + " is not familiar with an edge to " + from);
+    }
+
+    /**
+     * A change to the edge to neighbor, posted to both of its endpoints.
+     * Removing a tree edge, or making it heavier, splits the tree in two
+     * and both endpoints start a repair of their side. A new edge, or a
+     * non-tree edge that gets lighter, is probed along the tree path it
+     * closes a cycle with. Anything else changes only the two edge tables.
+     */
+    void handleEdgeUpdate(Integer neighbor, Weight weight, boolean initiator) {
+        int index = this.edgeIndex.get(neighbor);
+        if (index < 0 && weight == null) {
+            quietIf(initiator);
+        } else if (index < 0) {
+            Edge[] grown = Arrays.copyOf(this.edges, this.edges.length + 1);
+            byte[] states = Arrays.copyOf(this.edgeStates, grown.length);
+            grown[this.edges.length] = new Edge(this.id, neighbor, weight);
+            setEdges(grown, states);
+            if (initiator) {
+                probe(neighbor, weight);
+            }
+        } else {
+            Edge old = this.edges[index];
+            boolean inTree = EDGE_STATES[this.edgeStates[index]] == EdgeState.IN_MST;
+            Edge[] changed = this.edges.clone();
+            byte[] states = this.edgeStates.clone();
+            if (weight == null) {
+                changed[index] = changed[changed.length - 1];
+                states[index] = states[states.length - 1];
+                changed = Arrays.copyOf(changed, changed.length - 1);
+                states = Arrays.copyOf(states, states.length - 1);
+            } else {
+                changed[index] = new Edge(this.id, neighbor, weight);
+                // A heavier tree edge is searched again, and so is a lighter non-tree edge: it may replace a tree edge lighter than the repair's cut
+                if (inTree ? weight.compareTo(old.weight) > 0 : weight.compareTo(old.weight) < 0) {
+                    states[index] = (byte) EdgeState.UNKNOWN.ordinal();
+                }
+            }
+            setEdges(changed, states);
+            if (inTree && (weight == null || weight.compareTo(old.weight) > 0)) {
+                startRepair(old.weight);
+            } else if (!inTree && weight != null && weight.compareTo(old.weight) < 0) {
+                if (initiator) {
+                    probe(neighbor, weight);
+                }
+            } else {
+                quietIf(initiator);
             }
-        } catch (MalformedURLException | RemoteException ignored) {
         }
-        return node;
     }
 
-    private Edge identifyEdge(Integer from) {
-//        System.out.println(this.id + ": Trying to find an edge to or from " + from);
-        for (Edge e : this.edges) {
-            if (e.source.equals(from) || e.target.equals(from)) {
-                return e;
+    private void quietIf(boolean initiator) {
+        if (initiator) {
+            onQuiet.run();
+        }
+    }
+
+    // Floods the tree from one end of a new edge to find the heaviest edge on the path to the other end
+    private void probe(Integer target, Weight edge) {
+        this.probeParent = null;
+        boolean sent = false;
+        for (int k = 0; k < this.edges.length; k++) {
+            if (EDGE_STATES[this.edgeStates[k]] == EdgeState.IN_MST) {
+                send(this.edges[k], new ProbeMessage(this.id, target, edge, null));
+                sent = true;
             }
         }
-        throw new RuntimeException("Node " + this.id + " is not familiar with an edge to " + from);
+        if (!sent) {
+            onQuiet.run();
+        }
     }
 
-    public void printStatus() {
-//        System.out.println("[Node: " + this.id + ", Level: " + this.fragmentLevel + ", Core: " + this.fragmentName + "]");
-//        System.out.println("All edges:");
-//        for (Edge edge : this.edges) {
-//            if (this.id.equals(edge.source)) {
-//            System.out.println(edge.source + " - [" + edge.weight + "] - " + edge.target);
-//            }
-//        }
-//        System.out.println("Edges in MST:");
-        for (Edge edge : this.edgeStates.keySet()) {
-            if (this.edgeStates.get(edge).equals(EdgeState.IN_MST)) {
-                if (this.id.equals(edge.source)) {
-                    System.out.println(edge.source + " " + edge.target);
+    void handleProbe(Integer from, Integer target, Weight edge, Weight heaviest) {
+        Edge j = identifyEdge(from);
+        if (heaviest == null || j.weight.compareTo(heaviest) > 0) {
+            heaviest = j.weight;
+        }
+        this.probeParent = j;
+        if (this.id.equals(target)) {
+            if (edge.compareTo(heaviest) < 0) {
+                swap(heaviest);
+            } else {
+                onQuiet.run();
+            }
+        } else {
+            for (int k = 0; k < this.edges.length; k++) {
+                Edge i = this.edges[k];
+                if (i != j && EDGE_STATES[this.edgeStates[k]] == EdgeState.IN_MST) {
+                    send(i, new ProbeMessage(this.id, target, edge, heaviest));
                 }
             }
         }
     }
 
+    // Walks the probe path back until the heaviest edge, which leaves the tree from both its ends
+    private void swap(Weight heaviest) {
+        send(probeParent, new SwapMessage(this.id, heaviest));
+        if (probeParent.weight.equals(heaviest)) {
+            updateEdgeState(probeParent, EdgeState.UNKNOWN);
+            startRepair(heaviest);
+        }
+    }
+
+    void handleSwap(Integer from, Weight heaviest) {
+        Edge j = identifyEdge(from);
+        if (j.weight.equals(heaviest)) {
+            updateEdgeState(j, EdgeState.UNKNOWN);
+            startRepair(heaviest);
+        } else {
+            swap(heaviest);
+        }
+    }
+
+    /**
+     * Becomes the root of one side of a split tree and searches it for the
+     * lightest edge across the cut, one level up so no test is answered by
+     * a node the repair has not reached yet. The name is unique to this
+     * root and never the name of a real edge. The Repair still reaches
+     * every node of the side, so its cost grows with the side rather than
+     * with the change; only the rejected edges that may cross are tested.
+     */
+    private void startRepair(Weight cut) {
+        this.findCount = 0;
+        resetBasicEdges(cut);
+        initiate(null, this.fragmentLevel + 1, new Weight(this.fragmentLevel + 1, this.id, this.id),
+                NodeState.FIND, cut);
+    }
+
+    void handleRepair(Integer from, Integer L, Weight F, Weight cut) {
+        resetBasicEdges(cut);
+        initiate(identifyEdge(from), L, F, NodeState.FIND, cut);
+    }
+
+    /**
+     * Rejected edges may cross the split now, but only those heavier than
+     * the edge that left the tree: that edge lies on the tree path of every
+     * rejected edge across the cut, and a rejected edge is heavier than
+     * every tree edge on its path.
+     */
+    private void resetBasicEdges(Weight cut) {
+        for (int k = 0; k < this.edgeStates.length; k++) {
+            if (EDGE_STATES[this.edgeStates[k]] == EdgeState.NOT_IN_MST && this.edges[k].weight.compareTo(cut) > 0) {
+                this.edgeStates[k] = (byte) EdgeState.UNKNOWN.ordinal();
+            }
+        }
+        this.testCursor = 0;
+    }
+
+    // For the watchdog, which reads it from its own thread while the node may still be running
+    public String status() {
+        int connects = 0;
+        for (ConnectMessage connect : deferredConnects) {
+            connects += connect != null ? 1 : 0;
+        }
+        return "Node " + this.id + (this.job > 0 ? " of job " + this.job : "") + ": " + this.state + ", level " + this.fragmentLevel + ", findCount " + this.findCount
+                + ", testEdge " + this.testEdge + ", inBranch " + this.inBranch + ", bestWeight " + this.bestWeight
+                + ", deferred " + deferredTests.size() + " tests, " + connects + " connects, " + deferredReports.size()
+                + " reports, " + early.size() + " early, " + (retransmitter != null ? retransmitter.pending() : 0) + " unacked";
+    }
+
+    // Neighbours across the edges this node marked IN_MST
+    public int[] mstNeighbors() {
+        int[] neighbors = new int[this.edges.length];
+        int count = 0;
+        for (int i = 0; i < this.edges.length; i++) {
+            if (EDGE_STATES[this.edgeStates[i]] == EdgeState.IN_MST) {
+                neighbors[count++] = getReceiver(this.edges[i]);
+            }
+        }
+        return Arrays.copyOf(neighbors, count);
+    }
+
 }
@@ -0,0 +1,113 @@
+import java.net.MalformedURLException;
+import java.rmi.Naming;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Knows which router hosts which node. The routers bound in the registries
+ * of the given hosts are asked for their node ids, so a refresh costs one
+ * lookup per JVM instead of one per node. A miss, or a router that fails
+ * with a RemoteException, triggers a refresh; a node no router hosts is a
+ * RemoteException for the sender.
+ */
+public class NodeDirectory {
+    public static final String ROUTER_PREFIX = "router-";
+
+    private final String[] hosts;
+    private final ConcurrentMap<Integer, IRouter> routes = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+
+    public NodeDirectory(String... hosts) {
+        this.hosts = hosts;
+    }
+
+    public IRouter lookup(Integer nodeId) {
+        IRouter router = routes.get(nodeId);
+        if (router != null) {
+            hits.increment();
+            return router;
+        }
+        misses.increment();
+        refresh();
+        return routes.get(nodeId);
+    }
+
+    // Asks every router bound on the known hosts which nodes it hosts
+    public synchronized void refresh() {
+        refreshes.increment();
+        for (String host : hosts) {
+            try {
+                for (String name : Naming.list("//" + host + ":1099")) {
+                    if (!name.contains("/" + ROUTER_PREFIX)) {
+                        continue;
+                    }
+                    try {
+                        IRouter router = (IRouter) Naming.lookup(name);
+                        for (int id : router.nodeIds()) {
+                            routes.put(id, router);
+                        }
+                    } catch (NotBoundException | RemoteException ignored) {
+                    }
+                }
+            } catch (MalformedURLException | RemoteException ignored) {
+            }
+        }
+    }
+
+    public void invalidate(Integer nodeId) {
+        routes.remove(nodeId);
+    }
+
+    /**
+     * Delivers a message to a node, refreshing the routes and retrying
+     * once if its router turns out to be stale.
+     */
+    public void deliver(Integer nodeId, Message message) throws RemoteException {
+        call(nodeId, router -> router.route(nodeId, message));
+    }
+
+    public void deliverBatch(Integer nodeId, List<Message> messages) throws RemoteException {
+        call(nodeId, router -> router.routeBatch(nodeId, messages));
+    }
+
+    private void call(Integer nodeId, RemoteCall call) throws RemoteException {
+        IRouter router = lookup(nodeId);
+        if (router == null) {
+            throw new RemoteException("No router hosts node " + nodeId);
+        }
+        try {
+            call.invoke(router);
+        } catch (RemoteException e) {
+            invalidate(nodeId);
+            router = lookup(nodeId);
+            if (router == null) {
+                throw e;
+            }
+            call.invoke(router);
+        }
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    private interface RemoteCall {
+        void invoke(IRouter router) throws RemoteException;
+    }
+
+    @Override
+    public String toString() {
+        return "[Directory: " + routes.size() + " routes, " + hits() + " hits, " + misses() + " misses, "
+                + refreshes.sum() + " refreshes]";
+    }
+}
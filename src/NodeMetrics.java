@@ -0,0 +1,163 @@
+import java.util.Arrays;
+
+/**
+ * What one node sent, received and deferred, per message type, how many
+ * messages overtook an earlier one on their link, were sent again or
+ * arrived twice, with one send-to-handle latency histogram over all its
+ * incoming links and the time spent at each fragment level. Nodes only
+ * keep it when --metrics or --jmx asks for it. Only the node's own
+ * mailbox writes it; JMX and the JSON dump read it while it runs, so a
+ * read may lag a little.
+ */
+public class NodeMetrics {
+    private static final MessageType[] TYPES = MessageType.values();
+
+    private final long[] sent = new long[TYPES.length];
+    private final long[] received = new long[TYPES.length];
+    private final int[] deferred = new int[TYPES.length]; // waiting right now
+    private final int[] deferredPeak = new int[TYPES.length];
+    private long reordered; // held back for an earlier message on the same link
+    private long retransmitted;
+    private long duplicates; // dropped, an earlier copy was handled or is waiting
+    private final Histogram latency = new Histogram();
+    private long[] levelNanos = new long[8];
+    private int level = -1;
+    private long levelStart;
+    private long lastHandled;
+
+    void sent(Message message) {
+        sent[message.type().ordinal()]++;
+        message.sentAt = System.nanoTime();
+    }
+
+    // Messages that crossed a serializing transport carry no send time and only count
+    void received(Message message) {
+        long now = System.nanoTime();
+        received[message.type().ordinal()]++;
+        lastHandled = now;
+        if (message.sentAt != 0) {
+            latency.record(now - message.sentAt);
+        }
+    }
+
+    void deferred(MessageType type, int delta) {
+        int depth = deferred[type.ordinal()] += delta;
+        deferredPeak[type.ordinal()] = Math.max(deferredPeak[type.ordinal()], depth);
+    }
+
+    void reorder() {
+        reordered++;
+    }
+
+    void retransmit() {
+        retransmitted++;
+    }
+
+    void duplicate() {
+        duplicates++;
+    }
+
+    void enterLevel(int level) {
+        if (level == this.level) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (this.level >= 0) {
+            levelNanos = grow(levelNanos, this.level);
+            levelNanos[this.level] += now - levelStart;
+        }
+        this.level = level;
+        this.levelStart = now;
+    }
+
+    private static long[] grow(long[] array, int index) {
+        return index < array.length ? array : Arrays.copyOf(array, Math.max(index + 1, 2 * array.length));
+    }
+
+    public long sent(MessageType type) {
+        return sent[type.ordinal()];
+    }
+
+    public long received(MessageType type) {
+        return received[type.ordinal()];
+    }
+
+    public int deferred(MessageType type) {
+        return deferred[type.ordinal()];
+    }
+
+    public int deferredPeak(MessageType type) {
+        return deferredPeak[type.ordinal()];
+    }
+
+    public long reordered() {
+        return reordered;
+    }
+
+    public long retransmitted() {
+        return retransmitted;
+    }
+
+    public long duplicates() {
+        return duplicates;
+    }
+
+    // Messages handled so far, of every type
+    public long handled() {
+        long total = 0;
+        for (long count : received) {
+            total += count;
+        }
+        return total;
+    }
+
+    public Histogram latency() {
+        return latency;
+    }
+
+    // Time at each level so far, the current level up to the last message handled
+    public long[] levelNanos() {
+        long[] nanos = Arrays.copyOf(levelNanos, Math.max(levelNanos.length, level + 1));
+        if (level >= 0) {
+            nanos[level] += Math.max(0, lastHandled - levelStart);
+        }
+        return Arrays.copyOf(nanos, level + 1);
+    }
+
+    public String toJson(int id) {
+        StringBuilder json = new StringBuilder("{\"id\":").append(id);
+        json.append(",\"sent\":");
+        appendCounts(json, sent);
+        json.append(",\"received\":");
+        appendCounts(json, received);
+        json.append(",\"reordered\":").append(reordered);
+        json.append(",\"retransmitted\":").append(retransmitted).append(",\"duplicates\":").append(duplicates);
+        json.append(",\"deferredPeak\":{");
+        String separator = "";
+        for (MessageType type : TYPES) {
+            if (deferredPeak[type.ordinal()] > 0) {
+                json.append(separator).append('"').append(type).append("\":").append(deferredPeak[type.ordinal()]);
+                separator = ",";
+            }
+        }
+        json.append("},\"levelMillis\":[");
+        long[] nanos = levelNanos();
+        for (int l = 0; l < nanos.length; l++) {
+            json.append(l == 0 ? "" : ",").append(nanos[l] / 1e6);
+        }
+        json.append("],\"latency\":").append(latency.toJson());
+        return json.append('}').toString();
+    }
+
+    private static void appendCounts(StringBuilder json, long[] counts) {
+        json.append('{');
+        String separator = "";
+        for (MessageType type : TYPES) {
+            if (counts[type.ordinal()] > 0) {
+                json.append(separator).append('"').append(type).append("\":").append(counts[type.ordinal()]);
+                separator = ",";
+            }
+        }
+        json.append('}');
+    }
+}
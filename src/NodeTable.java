@@ -0,0 +1,69 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The nodes a transport delivers to, by vertex id and then by job. Every
+ * job running on the transport has a Node of its own for a vertex, so the
+ * jobs share the transport, the mailbox threads and the exported router
+ * but never any GHS state. A single run is job 0.
+ */
+public final class NodeTable {
+    private final ConcurrentMap<Integer, Node[]> nodes = new ConcurrentHashMap<>();
+
+    // Copies the vertex's array, so lookups never see it half written
+    public void add(Node node) {
+        int job = node.getJob();
+        nodes.compute(node.getId(), (id, jobs) -> {
+            Node[] grown = jobs == null ? new Node[job + 1] : Arrays.copyOf(jobs, Math.max(jobs.length, job + 1));
+            grown[job] = node;
+            return grown;
+        });
+    }
+
+    // The node of the job for the vertex, null if it is not hosted here
+    public Node get(int job, Integer nodeId) {
+        Node[] jobs = nodes.get(nodeId);
+        return jobs != null && job < jobs.length ? jobs[job] : null;
+    }
+
+    public boolean hosts(Integer nodeId) {
+        return nodes.containsKey(nodeId);
+    }
+
+    // The vertices with a node here, in any job
+    public int[] ids() {
+        int[] ids = new int[nodes.size()];
+        int i = 0;
+        for (Integer id : nodes.keySet()) {
+            if (i == ids.length) {
+                break;
+            }
+            ids[i++] = id;
+        }
+        // Nodes may be added while the ids are copied
+        return i == ids.length ? ids : Arrays.copyOf(ids, i);
+    }
+
+    public List<Node> all() {
+        List<Node> all = new ArrayList<>();
+        for (Node[] jobs : nodes.values()) {
+            for (Node node : jobs) {
+                if (node != null) {
+                    all.add(node);
+                }
+            }
+        }
+        return all;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    public void clear() {
+        nodes.clear();
+    }
+}
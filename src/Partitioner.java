@@ -0,0 +1,98 @@
+import java.util.Arrays;
+
+/**
+ * Splits the vertices of a graph into k shards of about equal size while
+ * keeping few edges between shards. Shards are first grown breadth-first
+ * from unassigned seeds, then refined by label propagation: a vertex
+ * moves to the shard most of its neighbours are in, as long as that shard
+ * has room.
+ */
+public final class Partitioner {
+    private static final int REFINEMENT_ROUNDS = 8;
+    private static final double SLACK = 1.05; // shards may grow this much above an even split
+
+    private Partitioner() {
+    }
+
+    // Returns the shard of every vertex, indexed by vertex id (index 0 is unused)
+    public static int[] partition(Graph graph, int k) {
+        int n = graph.vertexCount();
+        int[] shard = new int[n + 1];
+        Arrays.fill(shard, -1);
+        int[] size = new int[k];
+        int capacity = (n + k - 1) / k;
+
+        int[] queue = new int[n];
+        int nextSeed = 1;
+        for (int s = 0; s < k; s++) {
+            int head = 0;
+            int tail = 0;
+            while (size[s] < capacity) {
+                if (head == tail) {
+                    while (nextSeed <= n && shard[nextSeed] >= 0) {
+                        nextSeed++;
+                    }
+                    if (nextSeed > n) {
+                        break;
+                    }
+                    shard[nextSeed] = s;
+                    size[s]++;
+                    queue[tail++] = nextSeed;
+                }
+                int v = queue[head++];
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1] && size[s] < capacity; i++) {
+                    int u = graph.targets[i];
+                    if (shard[u] < 0) {
+                        shard[u] = s;
+                        size[s]++;
+                        queue[tail++] = u;
+                    }
+                }
+            }
+        }
+
+        int limit = (int) Math.ceil(capacity * SLACK);
+        int[] votes = new int[k];
+        for (int round = 0; round < REFINEMENT_ROUNDS; round++) {
+            int moved = 0;
+            for (int v = 1; v <= n; v++) {
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+                    votes[shard[graph.targets[i]]]++;
+                }
+                int current = shard[v];
+                int best = current;
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+                    int candidate = shard[graph.targets[i]];
+                    if (votes[candidate] > votes[best] && size[candidate] < limit) {
+                        best = candidate;
+                    }
+                }
+                for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+                    votes[shard[graph.targets[i]]] = 0;
+                }
+                if (best != current && size[current] > 1) {
+                    shard[v] = best;
+                    size[current]--;
+                    size[best]++;
+                    moved++;
+                }
+            }
+            if (moved == 0) {
+                break;
+            }
+        }
+        return shard;
+    }
+
+    public static long cutEdges(Graph graph, int[] shard) {
+        long cut = 0;
+        for (int v = 1; v <= graph.vertexCount(); v++) {
+            for (int i = graph.offsets[v]; i < graph.offsets[v + 1]; i++) {
+                if (graph.targets[i] > v && shard[graph.targets[i]] != shard[v]) {
+                    cut++;
+                }
+            }
+        }
+        return cut;
+    }
+}
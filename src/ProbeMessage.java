@@ -0,0 +1,31 @@
+import java.nio.ByteBuffer;
+
+public class ProbeMessage extends Message {
+    final Integer target; // the far end of the new edge
+    final Weight edge; // the new edge
+    final Weight heaviest; // the heaviest tree edge on the path so far, null at the start
+
+    public ProbeMessage(Integer from, Integer target, Weight edge, Weight heaviest) {
+        super(from);
+        this.target = target;
+        this.edge = edge;
+        this.heaviest = heaviest;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.PROBE;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleProbe(from, target, edge, heaviest);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(target);
+        writeWeight(buffer, edge);
+        writeWeight(buffer, heaviest);
+    }
+}
@@ -0,0 +1,16 @@
+public class RejectMessage extends Message {
+
+    public RejectMessage(Integer from) {
+        super(from);
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.REJECT;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleReject(from);
+    }
+}
@@ -0,0 +1,31 @@
+import java.nio.ByteBuffer;
+
+public class RepairMessage extends Message {
+    final Integer level;
+    final Weight name;
+    final Weight cut; // the edge that left the tree, only rejected edges heavier than it can cross the split
+
+    public RepairMessage(Integer from, Integer level, Weight name, Weight cut) {
+        super(from);
+        this.level = level;
+        this.name = name;
+        this.cut = cut;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.REPAIR;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleRepair(from, level, name, cut);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(level);
+        writeWeight(buffer, name);
+        writeWeight(buffer, cut);
+    }
+}
@@ -1,9 +1,25 @@
-public class ReportMessage {
-    final Integer from;
+import java.nio.ByteBuffer;
+
+public class ReportMessage extends Message {
     final Weight weight;
 
     public ReportMessage(Integer f, Weight w) {
-        this.from = f;
+        super(f);
         this.weight = w;
     }
+
+    @Override
+    MessageType type() {
+        return MessageType.REPORT;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleReport(from, weight);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        writeWeight(buffer, weight);
+    }
 }
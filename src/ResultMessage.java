@@ -0,0 +1,27 @@
+import java.nio.ByteBuffer;
+
+public class ResultMessage extends Message {
+    final Integer edges; // MST edges in the sender's subtree, the edge to its parent included
+    final Long weight; // their total weight
+
+    public ResultMessage(Integer from, Integer edges, Long weight) {
+        super(from);
+        this.edges = edges;
+        this.weight = weight;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.RESULT;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleResult(from, edges, weight);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(edges).putLong(weight);
+    }
+}
@@ -0,0 +1,111 @@
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * At-least-once delivery for the links of one node. Every sequenced
+ * message stays here until its receiver acknowledges it, and goes out
+ * again whenever its timeout passes without an ack. The timeout doubles
+ * with each attempt up to a ceiling, and after the last attempt the
+ * message is given up. Acks are cumulative, so one ack settles a link up
+ * to its number. Only the node's own mailbox touches it.
+ */
+public final class Retransmitter {
+    private final long initialMillis;
+    private final long maxMillis;
+    private final int maxAttempts;
+    private final Map<Integer, ArrayDeque<Pending>> links = new HashMap<>(); // by receiver, in sequence order
+    private int pending;
+
+    public Retransmitter(long initialMillis, long maxMillis, int maxAttempts) {
+        this.initialMillis = Math.max(1, initialMillis);
+        this.maxMillis = Math.max(this.initialMillis, maxMillis);
+        this.maxAttempts = maxAttempts;
+    }
+
+    // Parses "<initial ms>[,<max ms>[,<attempts>]]"
+    public static Retransmitter parse(String spec) {
+        String[] parts = spec.split(",");
+        long initial = Long.parseLong(parts[0]);
+        long max = parts.length > 1 ? Long.parseLong(parts[1]) : 32 * initial;
+        int attempts = parts.length > 2 ? Integer.parseInt(parts[2]) : 16;
+        return new Retransmitter(initial, max, attempts);
+    }
+
+    // A copy with the same policy for another node
+    public Retransmitter copy() {
+        return new Retransmitter(initialMillis, maxMillis, maxAttempts);
+    }
+
+    void sent(Integer receiverId, Message message, long nowMillis) {
+        links.computeIfAbsent(receiverId, id -> new ArrayDeque<>()).add(new Pending(message, nowMillis + initialMillis, initialMillis));
+        pending++;
+    }
+
+    void acked(Integer receiverId, int seq) {
+        ArrayDeque<Pending> link = links.get(receiverId);
+        while (link != null && !link.isEmpty() && link.peek().message.seq <= seq) {
+            link.poll();
+            pending--;
+        }
+    }
+
+    /**
+     * Hands every message whose timeout passed to resend, with its timeout
+     * doubled, or to lost once it has had all its attempts.
+     */
+    void due(long nowMillis, BiConsumer<Integer, Message> resend, BiConsumer<Integer, Message> lost) {
+        for (Map.Entry<Integer, ArrayDeque<Pending>> link : links.entrySet()) {
+            for (Iterator<Pending> it = link.getValue().iterator(); it.hasNext(); ) {
+                Pending p = it.next();
+                if (p.dueAt > nowMillis) {
+                    continue;
+                } else if (++p.attempts >= maxAttempts) {
+                    it.remove();
+                    pending--;
+                    lost.accept(link.getKey(), p.message);
+                } else {
+                    p.timeout = Math.min(maxMillis, 2 * p.timeout);
+                    p.dueAt = nowMillis + p.timeout;
+                    resend.accept(link.getKey(), p.message);
+                }
+            }
+        }
+    }
+
+    // When the earliest timeout passes, Long.MAX_VALUE with nothing pending
+    long nextDue() {
+        long next = Long.MAX_VALUE;
+        for (ArrayDeque<Pending> link : links.values()) {
+            for (Pending p : link) {
+                next = Math.min(next, p.dueAt);
+            }
+        }
+        return next;
+    }
+
+    int pending() {
+        return pending;
+    }
+
+    @Override
+    public String toString() {
+        return "[Retransmit: after " + initialMillis + " ms, doubling up to " + maxMillis + " ms, " + maxAttempts
+                + " attempts]";
+    }
+
+    private static final class Pending {
+        final Message message;
+        long dueAt;
+        long timeout;
+        int attempts = 0;
+
+        Pending(Message message, long dueAt, long timeout) {
+            this.message = message;
+            this.dueAt = dueAt;
+            this.timeout = timeout;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+public class RetryMessage extends Message {
+
+    public RetryMessage(Integer from) {
+        super(from);
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.RETRY;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleRetry();
+    }
+}
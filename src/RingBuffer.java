@@ -0,0 +1,99 @@
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+
+/**
+ * Single-producer single-consumer ring of message frames in a memory-mapped
+ * file, shared by two JVMs on one host. Frames are encoded as in
+ * SocketTransport. The producer and consumer positions sit on their own
+ * cache lines at the start of the file and only ever grow; each side
+ * publishes its position with a release store and reads the other's with
+ * an acquire load, so no lock crosses the process boundary.
+ */
+public class RingBuffer {
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int TAIL = 0;  // written by the producer
+    private static final int HEAD = 64; // written by the consumer
+    private static final int DATA = 128;
+    private static final int FULL_SPINS = 100;
+    private static final byte PADDING = -1; // rest of the ring is unused, the next frame starts at offset 0
+
+    private final MappedByteBuffer map;
+    private final ByteBuffer data;
+    private final int capacity;
+    private long tail;
+    private long head;
+
+    public RingBuffer(Path file, int capacity) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            map = channel.map(FileChannel.MapMode.READ_WRITE, 0, DATA + capacity);
+        }
+        this.data = map.duplicate().position(DATA).slice();
+        this.capacity = capacity;
+        this.tail = (long) LONGS.getAcquire(map, TAIL);
+        this.head = (long) LONGS.getAcquire(map, HEAD);
+    }
+
+    // Producer side; callers in the producing JVM must not write concurrently
+    public void write(int receiverId, Message message) {
+        MessageType type = message.type();
+        int size = SocketTransport.HEADER_BYTES + type.payloadBytes;
+        int offset = (int) (tail % capacity);
+        int skip = capacity - offset < size ? capacity - offset : 0;
+        // Ring full: spin briefly, then give the consumer's CPU back
+        for (int spins = 0; tail + skip + size - (long) LONGS.getAcquire(map, HEAD) > capacity; spins++) {
+            if (spins < FULL_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        if (skip > 0) {
+            data.put(offset, PADDING);
+            tail += skip;
+            offset = 0;
+        }
+        data.position(offset);
+        data.put((byte) type.ordinal()).putInt(receiverId).putInt(message.job).putInt(message.from).putInt(message.seq);
+        message.writeTo(data);
+        tail += size;
+        LONGS.setRelease(map, TAIL, tail);
+    }
+
+    // Consumer side: hands every published frame to the sink and returns how many there were
+    public int read(BiConsumer<Integer, Message> sink) {
+        long published = (long) LONGS.getAcquire(map, TAIL);
+        long start = head;
+        int count = 0;
+        while (head < published) {
+            int offset = (int) (head % capacity);
+            byte ordinal = data.get(offset);
+            if (ordinal == PADDING) {
+                head += capacity - offset;
+                continue;
+            }
+            MessageType type = MessageType.values()[ordinal];
+            data.position(offset + 1);
+            int receiverId = data.getInt();
+            int job = data.getInt();
+            int from = data.getInt();
+            int seq = data.getInt();
+            sink.accept(receiverId, Message.readFrom(type, job, from, seq, data));
+            head += SocketTransport.HEADER_BYTES + type.payloadBytes;
+            count++;
+        }
+        // Also after skipping only padding, or the producer waits for that space forever
+        if (head != start) {
+            LONGS.setRelease(map, HEAD, head);
+        }
+        return count;
+    }
+}
@@ -0,0 +1,94 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Exports one Router for all nodes of this JVM and binds it in the registry
+ * as "router-" + pid. Messages are remote calls on the router hosting the
+ * receiver, found through the directory.
+ */
+public class RmiTransport implements Transport {
+    private final Registry registry;
+    private final NodeDirectory directory;
+    private final Router router = new Router();
+    private final String name = NodeDirectory.ROUTER_PREFIX + ProcessHandle.current().pid();
+    private final LongAdder calls = new LongAdder();
+    private boolean exported;
+
+    public RmiTransport(Registry registry, NodeDirectory directory) {
+        this.registry = registry;
+        this.directory = directory;
+    }
+
+    // Uses the registry on this host, or creates one that lives as long as this JVM
+    public static Registry localRegistry() throws RemoteException {
+        try {
+            Registry registry = LocateRegistry.getRegistry("localhost", 1099);
+            registry.list();
+            return registry;
+        } catch (RemoteException e) {
+            try {
+                return LocateRegistry.createRegistry(1099);
+            } catch (RemoteException taken) {
+                // Another JVM created one in the meantime
+                return LocateRegistry.getRegistry("localhost", 1099);
+            }
+        }
+    }
+
+    @Override
+    public void bind(Node node) {
+        router.add(node);
+    }
+
+    // The router is bound once all nodes are added, so a refresh never sees a partial node list; later jobs reuse it
+    @Override
+    public synchronized void ready() {
+        if (exported) {
+            return;
+        }
+        exported = true;
+        try {
+            IRouter stub = (IRouter) UnicastRemoteObject.exportObject(router, 0);
+            registry.bind(name, stub);
+        } catch (RemoteException | AlreadyBoundException e) {
+            e.printStackTrace();
+        }
+        directory.refresh();
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) throws RemoteException {
+        calls.increment();
+        directory.deliver(receiverId, message);
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) throws RemoteException {
+        calls.increment();
+        directory.deliverBatch(receiverId, messages);
+    }
+
+    @Override
+    public void close() {
+        try {
+            registry.unbind(name);
+            UnicastRemoteObject.unexportObject(router, true);
+        } catch (RemoteException e) {
+            e.printStackTrace();
+        } catch (NotBoundException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: rmi, " + router.size() + " nodes behind " + name + ", " + calls.sum() + " remote calls, "
+                + directory + "]";
+    }
+}
@@ -0,0 +1,33 @@
+import java.util.List;
+
+public class Router implements IRouter {
+    private final NodeTable nodes = new NodeTable();
+
+    public void add(Node node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void route(Integer nodeId, Message message) {
+        Node node = nodes.get(message.job, nodeId);
+        if (node != null) {
+            node.post(message);
+        }
+    }
+
+    @Override
+    public void routeBatch(Integer nodeId, List<Message> messages) {
+        for (Message message : messages) {
+            route(nodeId, message);
+        }
+    }
+
+    @Override
+    public int[] nodeIds() {
+        return nodes.ids();
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+}
@@ -0,0 +1,142 @@
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sweeps graph sizes and average degrees, runs Main on a generated graph
+ * for every combination in its own JVM and writes one CSV row per run:
+ * wall time, messages per type, peak heap and thread count, next to the
+ * GHS bound of 5 N log2 N + 2 E messages.
+ *
+ * Usage: ScalingRunner [--type=gnm] [--sizes=1000,10000] [--degrees=4]
+ *        [--weights=distinct|tied] [--transport=simulate|local|rmi|columnar]
+ *        [--seed=1] [--timeout=<seconds>] [--out=scaling.csv]
+ */
+public final class ScalingRunner {
+    private ScalingRunner() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String type = "gnm";
+        String sizes = "1000,10000";
+        String degrees = "4";
+        boolean tied = false;
+        String transport = "simulate";
+        long seed = 1;
+        long timeout = 600;
+        String out = "scaling.csv";
+        for (String arg : args) {
+            if (arg.startsWith("--type=")) {
+                type = arg.substring("--type=".length());
+            } else if (arg.startsWith("--sizes=")) {
+                sizes = arg.substring("--sizes=".length());
+            } else if (arg.startsWith("--degrees=")) {
+                degrees = arg.substring("--degrees=".length());
+            } else if (arg.startsWith("--weights=")) {
+                tied = arg.substring("--weights=".length()).equals("tied");
+            } else if (arg.startsWith("--transport=")) {
+                transport = arg.substring("--transport=".length());
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.startsWith("--timeout=")) {
+                timeout = Long.parseLong(arg.substring("--timeout=".length()));
+            } else if (arg.startsWith("--out=")) {
+                out = arg.substring("--out=".length());
+            }
+        }
+
+        try (PrintWriter csv = new PrintWriter(out)) {
+            StringBuilder header = new StringBuilder("type,transport,nodes,edges,status,wall_ms");
+            for (MessageType messageType : MessageType.values()) {
+                if (!messageType.local()) {
+                    header.append(",").append(messageType.name().toLowerCase());
+                }
+            }
+            header.append(",messages,ghs_messages,ghs_bound,bound_ratio,peak_heap_bytes,peak_threads");
+            csv.println(header);
+            System.out.println(header);
+
+            for (String size : sizes.split(",")) {
+                for (String degree : degrees.split(",")) {
+                    int n = Integer.parseInt(size.trim());
+                    long m = (long) n * Integer.parseInt(degree.trim()) / 2;
+                    String row = run(type, n, m, tied, transport, seed, timeout);
+                    csv.println(row);
+                    csv.flush();
+                    System.out.println(row);
+                }
+            }
+        }
+    }
+
+    private static String run(String type, int n, long m, boolean tied, String transport, long seed, long timeout)
+            throws IOException, InterruptedException {
+        Graph graph = GraphGenerator.generate(type, n, m, seed, tied);
+        File input = File.createTempFile("ghs-graph-", ".bin");
+        File stats = File.createTempFile("ghs-stats-", ".properties");
+        try {
+            GraphWriter.writeBinary(graph, input.getPath());
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("Main");
+            if (transport.equals("simulate")) {
+                command.add("--simulate=" + seed);
+            } else if (transport.equals("columnar")) {
+                command.add("--engine=columnar");
+            } else {
+                command.add("--transport=" + transport);
+            }
+            command.add("--stats=" + stats.getPath());
+            command.add(input.getPath());
+            Process process = new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD).start();
+            String status;
+            if (process.waitFor(timeout, TimeUnit.SECONDS)) {
+                status = process.exitValue() == 100 ? "halted" : "exit-" + process.exitValue();
+            } else {
+                // Destroying runs the shutdown hook, which still writes the statistics
+                process.destroy();
+                process.waitFor();
+                status = "timeout";
+            }
+
+            Properties properties = new Properties();
+            try (InputStream in = new FileInputStream(stats)) {
+                properties.load(in);
+            }
+            long bound = ghsBound(graph.vertexCount(), graph.edgeCount());
+            long messages = Long.parseLong(properties.getProperty("messages.total", "0"));
+            long ghsMessages = Long.parseLong(properties.getProperty("messages.ghs", "0"));
+            StringBuilder row = new StringBuilder();
+            row.append(type).append(',').append(transport).append(',')
+                    .append(graph.vertexCount()).append(',').append(graph.edgeCount()).append(',')
+                    .append(status).append(',').append(properties.getProperty("wallMillis", ""));
+            for (MessageType messageType : MessageType.values()) {
+                if (!messageType.local()) {
+                    row.append(',').append(properties.getProperty("messages." + messageType, "0"));
+                }
+            }
+            row.append(',').append(messages).append(',').append(ghsMessages).append(',').append(bound)
+                    .append(',').append(String.format("%.3f", (double) ghsMessages / bound))
+                    .append(',').append(properties.getProperty("peakHeapBytes", ""))
+                    .append(',').append(properties.getProperty("peakThreads", ""));
+            return row.toString();
+        } finally {
+            input.delete();
+            stats.delete();
+        }
+    }
+
+    // 5 N log2 N + 2 E, the worst case message count of GHS
+    static long ghsBound(int nodes, long edges) {
+        return (long) Math.ceil(5 * nodes * (Math.log(nodes) / Math.log(2))) + 2 * edges;
+    }
+}
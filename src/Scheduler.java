@@ -0,0 +1,56 @@
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared threads for every node in this JVM: a work-stealing pool sized to
+ * the core count that drains the mailboxes, a single timer thread that
+ * simulates network delay without parking a thread per message, and a
+ * growing pool for the sends a transport makes later on its own, which may
+ * block on a remote call and so must not hold up the mailboxes.
+ */
+public final class Scheduler {
+    private static final ForkJoinPool pool = new ForkJoinPool(
+            Runtime.getRuntime().availableProcessors(),
+            ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+            null,
+            true);
+
+    private static final ScheduledExecutorService timer = new ScheduledThreadPoolExecutor(1, r -> {
+        // Not a daemon: like an exported RMI object it keeps the JVM alive until Main exits
+        return new Thread(r, "network-delay");
+    });
+
+    private static final ExecutorService io = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "transport-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Scheduler() {
+    }
+
+    public static void execute(Runnable task) {
+        pool.execute(task);
+    }
+
+    public static void schedule(Runnable task, long delayMillis) {
+        if (delayMillis <= 0) {
+            pool.execute(task);
+        } else {
+            timer.schedule(() -> pool.execute(task), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs a send on the I/O threads after the delay
+    public static void scheduleSend(Runnable send, long delayMillis) {
+        if (delayMillis <= 0) {
+            io.execute(send);
+        } else {
+            timer.schedule(() -> io.execute(send), delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+import java.util.List;
+
+public class Shard implements ShardControl {
+    private final List<Node> nodes;
+    private final int vertexCount;
+    private final WakeupPolicy wakeup;
+
+    public Shard(List<Node> nodes, int vertexCount, WakeupPolicy wakeup) {
+        this.nodes = nodes;
+        this.vertexCount = vertexCount;
+        this.wakeup = wakeup;
+    }
+
+    @Override
+    public void start() {
+        GhsEngine.start(nodes, vertexCount, wakeup);
+    }
+}
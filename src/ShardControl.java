@@ -0,0 +1,10 @@
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+
+/**
+ * Handle a shard JVM binds as "shard" + index once all of its nodes are
+ * bound, so the launcher can start every shard at the same moment.
+ */
+public interface ShardControl extends Remote {
+    void start() throws RemoteException;
+}
@@ -0,0 +1,132 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.rmi.NotBoundException;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs the graph as k shard JVMs on this host. Every shard hosts the
+ * vertices the Partitioner assigns to it and talks to the others over
+ * RMI; once all shards have bound their nodes the launcher starts them
+ * together. When one shard halts the others are stopped, which prints
+ * their part of the MST. Shard output goes to shard-<i>.log.
+ *
+ * Usage: ShardLauncher <k> [Main options...] <input file>
+ */
+public final class ShardLauncher {
+    private static final long BIND_TIMEOUT_MILLIS = 5 * 60 * 1000;
+
+    private ShardLauncher() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, NotBoundException {
+        if (args.length < 2) {
+            System.err.println("Usage: ShardLauncher <k> [Main options...] <input file>");
+            System.exit(1);
+        }
+        int k = Integer.parseInt(args[0]);
+        List<String> options = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        // Shared-memory rings must start empty, so every shm run gets a new directory
+        Path shmDirectory = null;
+        if (options.contains("--transport=shm") && options.stream().noneMatch(o -> o.startsWith("--shm-dir="))) {
+            Path devShm = Paths.get("/dev/shm");
+            shmDirectory = Files.isDirectory(devShm) ? Files.createTempDirectory(devShm, "ghs-")
+                    : Files.createTempDirectory("ghs-shm-");
+            options.add(0, "--shm-dir=" + shmDirectory);
+        }
+
+        Graph graph = GraphLoader.load(options.get(options.size() - 1));
+        int[] partition = Partitioner.partition(graph, k);
+        int[] sizes = new int[k];
+        for (int v = 1; v <= graph.vertexCount(); v++) {
+            sizes[partition[v]]++;
+        }
+        System.out.println("Shard sizes " + Arrays.toString(sizes) + ", " + Partitioner.cutEdges(graph, partition)
+                + " of " + graph.edgeCount() + " edges cross shards");
+
+        Registry registry = RmiTransport.localRegistry();
+        for (String name : registry.list()) {
+            if (name.startsWith("shard")) {
+                registry.unbind(name);
+            }
+        }
+
+        List<Process> shards = new ArrayList<>();
+        for (int i = 0; i < k; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("Main");
+            command.add("--shard=" + i + "/" + k);
+            command.addAll(options);
+            shards.add(new ProcessBuilder(command).redirectErrorStream(true)
+                    .redirectOutput(new File("shard-" + i + ".log")).start());
+        }
+        Path finalShmDirectory = shmDirectory;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            stop(shards);
+            if (finalShmDirectory != null) {
+                delete(finalShmDirectory);
+            }
+        }));
+
+        List<ShardControl> controls = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + BIND_TIMEOUT_MILLIS;
+        for (int i = 0; i < k; i++) {
+            while (!Arrays.asList(registry.list()).contains("shard" + i)) {
+                if (!shards.get(i).isAlive() || System.currentTimeMillis() > deadline) {
+                    System.err.println("Shard " + i + " did not bind its nodes, see shard-" + i + ".log");
+                    System.exit(1);
+                }
+                Thread.sleep(50);
+            }
+            controls.add((ShardControl) registry.lookup("shard" + i));
+        }
+        System.out.println("All " + k + " shards bound, starting");
+        for (ShardControl control : controls) {
+            control.start();
+        }
+
+        // GHS halts in the shard hosting the final core, the others only stop when told to
+        while (true) {
+            for (int i = 0; i < k; i++) {
+                if (shards.get(i).waitFor(10, TimeUnit.MILLISECONDS)) {
+                    int exit = shards.get(i).exitValue();
+                    System.out.println("Shard " + i + " exited with " + exit);
+                    stop(shards);
+                    System.exit(exit);
+                }
+            }
+        }
+    }
+
+    private static void delete(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> file.toFile().delete());
+            Files.delete(directory);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static void stop(List<Process> shards) {
+        for (Process shard : shards) {
+            shard.destroy();
+        }
+        for (Process shard : shards) {
+            try {
+                shard.waitFor();
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport for a JVM that hosts one shard of the graph: messages between
+ * nodes of this shard go straight into the receiver's mailbox, everything
+ * else goes through the remote transport.
+ */
+public class ShardedTransport implements Transport {
+    private final LocalTransport local;
+    private final Transport remote;
+    private final LongAdder localMessages = new LongAdder();
+    private final LongAdder remoteMessages = new LongAdder();
+
+    public ShardedTransport(LocalTransport local, Transport remote) {
+        this.local = local;
+        this.remote = remote;
+    }
+
+    @Override
+    public void bind(Node node) throws RemoteException, AlreadyBoundException {
+        local.bind(node);
+        remote.bind(node);
+    }
+
+    @Override
+    public void ready() {
+        local.ready();
+        remote.ready();
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) throws RemoteException {
+        if (local.hosts(receiverId)) {
+            localMessages.increment();
+            local.send(receiverId, message);
+        } else {
+            remoteMessages.increment();
+            remote.send(receiverId, message);
+        }
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) throws RemoteException {
+        if (local.hosts(receiverId)) {
+            localMessages.add(messages.size());
+            local.sendBatch(receiverId, messages);
+        } else {
+            remoteMessages.add(messages.size());
+            remote.sendBatch(receiverId, messages);
+        }
+    }
+
+    @Override
+    public void close() {
+        local.close();
+        remote.close();
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: sharded, " + localMessages.sum() + " local and " + remoteMessages.sum()
+                + " remote messages, " + remote + "]";
+    }
+}
@@ -0,0 +1,113 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Transport between shard JVMs on the same host through memory-mapped
+ * files: every ordered pair of shards has a RingBuffer named
+ * ring-<from>-<to> in a shared directory, which must be fresh for every
+ * run. One thread per JVM polls the incoming rings.
+ */
+public class ShmTransport implements Transport {
+    private static final int RING_BYTES = 1 << 20;
+    private static final int IDLE_SPINS = 1000;
+    private static final long IDLE_PARK_NANOS = 50_000;
+
+    private final int self;
+    private final int[] owner; // shard index of every node id
+    private final RingBuffer[] outgoing;
+    private final RingBuffer[] incoming;
+    private final NodeTable nodes = new NodeTable();
+    private final LongAdder framesOut = new LongAdder();
+    private volatile long framesIn = 0; // only written by the reader
+    private volatile boolean running = true;
+
+    public ShmTransport(int self, int shards, Path directory, int[] owner) throws IOException {
+        this.self = self;
+        this.owner = owner;
+        this.outgoing = new RingBuffer[shards];
+        this.incoming = new RingBuffer[shards];
+        Files.createDirectories(directory);
+        for (int peer = 0; peer < shards; peer++) {
+            if (peer != self) {
+                outgoing[peer] = new RingBuffer(directory.resolve("ring-" + self + "-" + peer), RING_BYTES);
+                incoming[peer] = new RingBuffer(directory.resolve("ring-" + peer + "-" + self), RING_BYTES);
+            }
+        }
+        Thread reader = new Thread(this::readLoop, "shm-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void bind(Node node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void ready() {
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) {
+        int peer = owner[receiverId];
+        if (peer == self) {
+            post(receiverId, message);
+            return;
+        }
+        RingBuffer ring = outgoing[peer];
+        synchronized (ring) {
+            ring.write(receiverId, message);
+        }
+        framesOut.increment();
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) {
+        for (Message message : messages) {
+            send(receiverId, message);
+        }
+    }
+
+    private void post(Integer receiverId, Message message) {
+        Node receiver = nodes.get(message.job, receiverId);
+        if (receiver != null) {
+            receiver.post(message);
+        }
+    }
+
+    // Spins while messages keep coming, parks briefly once the rings have been idle for a while
+    private void readLoop() {
+        int idle = 0;
+        while (running) {
+            int count = 0;
+            for (RingBuffer ring : incoming) {
+                if (ring != null) {
+                    count += ring.read(this::post);
+                }
+            }
+            if (count > 0) {
+                framesIn += count;
+                idle = 0;
+            } else if (++idle < IDLE_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.parkNanos(IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: shm, shard " + self + " of " + outgoing.length + ", " + framesOut.sum() + " frames out, "
+                + framesIn + " frames in]";
+    }
+}
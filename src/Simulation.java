@@ -0,0 +1,120 @@
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Discrete-event transport that runs all nodes on the calling thread
+ * against a virtual clock. Every directed link has its own latency, a
+ * hash of the seed and the link, plus jitter, so later messages on a link
+ * can overtake earlier ones; the receiving node puts them back in order.
+ * A run with the same graph and seed replays exactly.
+ */
+public class Simulation implements Transport {
+    private final long seed;
+    private final Random random;
+    private final int maxDelay;
+    private final NodeTable nodes = new NodeTable();
+    private final PriorityQueue<Event> events = new PriorityQueue<>();
+    private long now = 0;
+    private long sequence = 0;
+    private long delivered = 0;
+
+    public Simulation(long seed, int maxDelay) {
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.maxDelay = Math.max(1, maxDelay);
+    }
+
+    @Override
+    public void bind(Node node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void ready() {
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) {
+        Node receiver = nodes.get(message.job, receiverId);
+        if (receiver == null) {
+            return;
+        }
+        int base = baseLatency(message.from, receiverId);
+        long arrival = now + base + random.nextInt(base);
+        events.add(new Event(arrival, sequence++, receiver, message));
+    }
+
+    // Mixes the seed and the directed link like SplitMix64, so no table of links is kept
+    private int baseLatency(int from, int to) {
+        long z = seed * 0x9E3779B97F4A7C15L + (((long) from << 32) | (to & 0xFFFFFFFFL));
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return 1 + (int) Long.remainderUnsigned(z, maxDelay);
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) {
+        for (Message message : messages) {
+            send(receiverId, message);
+        }
+    }
+
+    /**
+     * Wakes the nodes at the virtual times the policy gives them and
+     * processes events until none are left.
+     */
+    public void run(WakeupPolicy wakeup) {
+        List<Node> sorted = nodes.all();
+        sorted.sort((a, b) -> a.getId().compareTo(b.getId()));
+        for (Node node : sorted) {
+            long time = wakeup.delayOf(node.getId(), sorted.size(), random);
+            if (time >= 0) {
+                events.add(new Event(time, sequence++, node, new WakeupMessage(node.getId())));
+            }
+        }
+        while (!events.isEmpty()) {
+            Event event = events.poll();
+            now = event.time;
+            delivered++;
+            event.receiver.process(event.message);
+        }
+    }
+
+    public long now() {
+        return now;
+    }
+
+    @Override
+    public void close() {
+        events.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: simulation (seed " + seed + "), " + delivered + " events, virtual time " + now + " ms]";
+    }
+
+    private static final class Event implements Comparable<Event> {
+        final long time;
+        final long sequence;
+        final Node receiver;
+        final Message message;
+
+        Event(long time, long sequence, Node receiver, Message message) {
+            this.time = time;
+            this.sequence = sequence;
+            this.receiver = receiver;
+            this.message = message;
+        }
+
+        @Override
+        public int compareTo(Event other) {
+            if (time != other.time) {
+                return Long.compare(time, other.time);
+            }
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends messages between JVMs as fixed-size binary frames over one TCP
+ * connection per peer: a type byte, the receiver id, the job, the sender
+ * id, the link sequence number, then the message fields (MessageType.payloadBytes). Frames are packed into pooled
+ * direct buffers and everything queued for a peer goes out in one gathered
+ * write, from one writer at a time, so each connection is FIFO. Incoming
+ * connections are read by a single selector thread.
+ */
+public class SocketTransport implements Transport {
+    static final int HEADER_BYTES = 1 + 4 * Integer.BYTES;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int CONNECT_ATTEMPTS = 100;
+
+    private final int self;
+    private final InetSocketAddress[] peers;
+    private final int[] owner; // peer index of every node id
+    private final Connection[] connections;
+    private final NodeTable nodes = new NodeTable();
+    private final BufferPool pool = new BufferPool(BUFFER_SIZE);
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final LongAdder framesOut = new LongAdder();
+    private final LongAdder bytesOut = new LongAdder();
+    private final LongAdder framesIn = new LongAdder();
+
+    public SocketTransport(int self, InetSocketAddress[] peers, int[] owner) throws IOException {
+        this.self = self;
+        this.peers = peers;
+        this.owner = owner;
+        this.connections = new Connection[peers.length];
+        for (int i = 0; i < peers.length; i++) {
+            connections[i] = new Connection(peers[i]);
+        }
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(peers[self].getPort()));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        Thread reader = new Thread(this::readLoop, "socket-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    @Override
+    public void bind(Node node) {
+        nodes.add(node);
+    }
+
+    @Override
+    public void ready() {
+    }
+
+    @Override
+    public void send(Integer receiverId, Message message) {
+        int peer = owner[receiverId];
+        if (peer == self) {
+            post(receiverId, message);
+        } else {
+            connections[peer].write(receiverId, message);
+        }
+    }
+
+    @Override
+    public void sendBatch(Integer receiverId, List<Message> messages) {
+        for (Message message : messages) {
+            send(receiverId, message);
+        }
+    }
+
+    private void post(Integer receiverId, Message message) {
+        Node receiver = nodes.get(message.job, receiverId);
+        if (receiver != null) {
+            receiver.post(message);
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (selector.isOpen()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        SocketChannel channel = server.accept();
+                        if (channel != null) {
+                            channel.configureBlocking(false);
+                            channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocateDirect(BUFFER_SIZE));
+                        }
+                    } else if (key.isReadable()) {
+                        read(key);
+                    }
+                }
+            }
+        } catch (ClosedSelectorException e) {
+            // closed by close()
+        } catch (IOException e) {
+            if (selector.isOpen()) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void read(SelectionKey key) throws IOException {
+        SocketChannel channel = (SocketChannel) key.channel();
+        ByteBuffer buffer = (ByteBuffer) key.attachment();
+        if (channel.read(buffer) < 0) {
+            key.cancel();
+            channel.close();
+            return;
+        }
+        buffer.flip();
+        while (buffer.remaining() >= HEADER_BYTES) {
+            MessageType type = MessageType.values()[buffer.get(buffer.position())];
+            if (buffer.remaining() < HEADER_BYTES + type.payloadBytes) {
+                break;
+            }
+            buffer.get();
+            int receiverId = buffer.getInt();
+            int job = buffer.getInt();
+            int from = buffer.getInt();
+            int seq = buffer.getInt();
+            post(receiverId, Message.readFrom(type, job, from, seq, buffer));
+            framesIn.increment();
+        }
+        buffer.compact();
+    }
+
+    @Override
+    public void close() {
+        try {
+            selector.close();
+            server.close();
+            for (Connection connection : connections) {
+                connection.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[Transport: socket, peer " + self + " of " + peers.length + ", " + framesOut.sum() + " frames ("
+                + bytesOut.sum() + " bytes) out, " + framesIn.sum() + " frames in]";
+    }
+
+    /**
+     * Outgoing connection to one peer, opened on first use. Senders append
+     * frames under the lock; a flush task scheduled like a mailbox writes
+     * them out.
+     */
+    private final class Connection implements Runnable {
+        private final InetSocketAddress address;
+        private final List<ByteBuffer> pending = new ArrayList<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private ByteBuffer current;
+        private SocketChannel channel;
+
+        Connection(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        void write(Integer receiverId, Message message) {
+            MessageType type = message.type();
+            synchronized (this) {
+                if (current == null || current.remaining() < HEADER_BYTES + type.payloadBytes) {
+                    if (current != null) {
+                        pending.add(current);
+                    }
+                    current = pool.acquire();
+                }
+                current.put((byte) type.ordinal()).putInt(receiverId).putInt(message.job).putInt(message.from).putInt(message.seq);
+                message.writeTo(current);
+            }
+            framesOut.increment();
+            if (scheduled.compareAndSet(false, true)) {
+                Scheduler.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            ByteBuffer[] buffers;
+            synchronized (this) {
+                if (current != null) {
+                    pending.add(current);
+                    current = null;
+                }
+                buffers = pending.toArray(new ByteBuffer[0]);
+                pending.clear();
+            }
+            try {
+                long remaining = 0;
+                for (ByteBuffer buffer : buffers) {
+                    buffer.flip();
+                    remaining += buffer.remaining();
+                }
+                bytesOut.add(remaining);
+                SocketChannel channel = channel();
+                while (remaining > 0) {
+                    remaining -= channel.write(buffers);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                for (ByteBuffer buffer : buffers) {
+                    pool.release(buffer);
+                }
+                scheduled.set(false);
+                boolean more;
+                synchronized (this) {
+                    more = current != null || !pending.isEmpty();
+                }
+                if (more && scheduled.compareAndSet(false, true)) {
+                    Scheduler.execute(this);
+                }
+            }
+        }
+
+        // The peer may still be starting, so connecting is retried for a while
+        private SocketChannel channel() throws IOException {
+            if (channel != null) {
+                return channel;
+            }
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    SocketChannel opened = SocketChannel.open(address);
+                    opened.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                    channel = opened;
+                    return channel;
+                } catch (IOException e) {
+                    if (attempt == CONNECT_ATTEMPTS) {
+                        throw e;
+                    }
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        throw e;
+                    }
+                }
+            }
+        }
+
+        void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
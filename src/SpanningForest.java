@@ -0,0 +1,109 @@
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * A minimum spanning forest as a set of undirected edges. Two forests are
+ * equal when they hold the same edges, whichever solver or run produced
+ * them, so a GHS result can be checked against a centralized solver.
+ */
+public final class SpanningForest {
+    private final long[] pairs; // lower id in the upper half, higher id in the lower half, sorted
+    private final long totalWeight;
+
+    private SpanningForest(long[] pairs, long totalWeight) {
+        this.pairs = pairs;
+        this.totalWeight = totalWeight;
+    }
+
+    // Edges given as ranks into the edge list
+    static SpanningForest ofRanks(EdgeList edges, int[] ranks, int count) {
+        long[] pairs = new long[count];
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            int e = ranks[i];
+            pairs[i] = pair(edges.lower[e], edges.higher[e]);
+            total += edges.weight[e];
+        }
+        Arrays.sort(pairs);
+        return new SpanningForest(pairs, total);
+    }
+
+    // Edges given as pairs like the ones kept here, in any order
+    static SpanningForest ofPairs(long[] pairs, long totalWeight) {
+        Arrays.sort(pairs);
+        return new SpanningForest(pairs, totalWeight);
+    }
+
+    /**
+     * Edges given by their endpoints in either orientation, as the nodes of
+     * a GHS run report them; an edge reported from both ends counts once.
+     */
+    public static SpanningForest ofEndpoints(Graph graph, int[] from, int[] to, int count) {
+        long[] pairs = new long[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = pair(Math.min(from[i], to[i]), Math.max(from[i], to[i]));
+        }
+        Arrays.sort(pairs);
+        int unique = 0;
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            if (i == 0 || pairs[i] != pairs[i - 1]) {
+                pairs[unique++] = pairs[i];
+                total += weightOf(graph, (int) (pairs[i] >>> 32), (int) pairs[i]);
+            }
+        }
+        return new SpanningForest(Arrays.copyOf(pairs, unique), total);
+    }
+
+    private static long pair(int lower, int higher) {
+        return ((long) lower << 32) | higher;
+    }
+
+    private static int weightOf(Graph graph, int u, int v) {
+        for (int s = graph.offsets[u]; s < graph.offsets[u + 1]; s++) {
+            if (graph.targets[s] == v) {
+                return graph.weights[s];
+            }
+        }
+        throw new EdgeException("No edge between " + u + " and " + v);
+    }
+
+    public int edgeCount() {
+        return pairs.length;
+    }
+
+    public long totalWeight() {
+        return totalWeight;
+    }
+
+    // The i-th edge in pair order, lower id in the upper half
+    long pair(int i) {
+        return pairs[i];
+    }
+
+    public boolean contains(int u, int v) {
+        return Arrays.binarySearch(pairs, pair(Math.min(u, v), Math.max(u, v))) >= 0;
+    }
+
+    // One "lower higher" line per edge
+    public void print(PrintStream out) {
+        for (long pair : pairs) {
+            out.println((pair >>> 32) + " " + (int) pair);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SpanningForest && Arrays.equals(pairs, ((SpanningForest) other).pairs);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(pairs);
+    }
+
+    @Override
+    public String toString() {
+        return "[MST: " + pairs.length + " edges, total weight " + totalWeight + "]";
+    }
+}
@@ -0,0 +1,25 @@
+import java.nio.ByteBuffer;
+
+public class SwapMessage extends Message {
+    final Weight heaviest; // the tree edge that leaves the tree
+
+    public SwapMessage(Integer from, Weight heaviest) {
+        super(from);
+        this.heaviest = heaviest;
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.SWAP;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleSwap(from, heaviest);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        writeWeight(buffer, heaviest);
+    }
+}
@@ -0,0 +1,16 @@
+public class TerminateMessage extends Message {
+
+    public TerminateMessage(Integer from) {
+        super(from);
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.TERMINATE;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleTerminate(from);
+    }
+}
@@ -1,11 +1,28 @@
-public class TestMessage {
-    final Integer from;
+import java.nio.ByteBuffer;
+
+public class TestMessage extends Message {
     final Integer level;
     final Weight weight;
 
     public TestMessage(Integer from, Integer level, Weight weight) {
-        this.from = from;
+        super(from);
         this.level = level;
         this.weight = weight;
     }
+
+    @Override
+    MessageType type() {
+        return MessageType.TEST;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleTest(from, level, weight);
+    }
+
+    @Override
+    void writeTo(ByteBuffer buffer) {
+        buffer.putInt(level);
+        writeWeight(buffer, weight);
+    }
 }
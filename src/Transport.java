@@ -0,0 +1,22 @@
+import java.rmi.AlreadyBoundException;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * The way nodes reach each other. A transport makes local nodes reachable
+ * under their id and carries messages to the node with a given id.
+ */
+public interface Transport {
+    // Nodes may be bound from several threads at once
+    void bind(Node node) throws RemoteException, AlreadyBoundException;
+
+    // Called once every node of a run has been bound, before any node wakes up; again for every further job
+    void ready();
+
+    void send(Integer receiverId, Message message) throws RemoteException;
+
+    // Messages must arrive at the receiver in list order
+    void sendBatch(Integer receiverId, List<Message> messages) throws RemoteException;
+
+    void close();
+}
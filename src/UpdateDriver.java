@@ -0,0 +1,55 @@
+import java.util.List;
+
+/**
+ * Applies edge updates to a running network one at a time, once the
+ * initial run has halted. Each update goes to one endpoint of its edge
+ * and, once that one has applied it, to the other. The next one goes out
+ * when the network is quiet again: after the HALT that ends a repair, or
+ * at once when no tree edge had to change. A deletion that splits a tree
+ * has two repair roots that both find nothing across the cut and halt, so
+ * it waits for both. A DynamicMst applies the same updates as the oracle for --verify.
+ */
+public class UpdateDriver {
+    private final List<Node> nodes; // node id - 1 -> node
+    private final List<EdgeUpdate> updates;
+    private final DynamicMst expected;
+    private final Runnable done;
+    private int next = 0;
+    private int pending; // quiet signals still due before the next update goes out
+
+    public UpdateDriver(List<Node> nodes, List<EdgeUpdate> updates, DynamicMst expected, Runnable done) {
+        this.nodes = nodes;
+        this.updates = updates;
+        this.expected = expected;
+        this.done = done;
+        this.pending = Math.max(1, expected.trees()); // the initial run halts once in every tree
+    }
+
+    // Called by any node once its part of the network is quiet
+    public synchronized void quiet() {
+        if (--pending > 0) {
+            return;
+        }
+        if (next == updates.size()) {
+            done.run();
+            return;
+        }
+        EdgeUpdate update = updates.get(next++);
+        int treeEdges = expected.treeEdges();
+        boolean changed = expected.apply(update);
+        pending = expected.treeEdges() < treeEdges ? 2 : 1;
+        System.out.println("Update " + next + "/" + updates.size() + ": " + update
+                + (changed ? ", the tree changes" : ", the tree stays"));
+        Weight weight = update.kind == EdgeUpdate.Kind.DELETE ? null
+                : new Weight(update.weight, Math.min(update.u, update.v), Math.max(update.u, update.v));
+        // The far end applies the update before the initiator gets it, so nothing reaches it over an edge it does not know
+        Node initiator = nodes.get(update.u - 1);
+        EdgeUpdateMessage second = new EdgeUpdateMessage(update.v, weight, true, null);
+        nodes.get(update.v - 1).post(new EdgeUpdateMessage(update.u, weight, false, () -> initiator.post(second)));
+    }
+
+    // The graph after the updates applied so far
+    public Graph graph() {
+        return expected.graph();
+    }
+}
@@ -0,0 +1,16 @@
+public class WakeupMessage extends Message {
+
+    public WakeupMessage(Integer from) {
+        super(from);
+    }
+
+    @Override
+    MessageType type() {
+        return MessageType.WAKEUP;
+    }
+
+    @Override
+    void handle(Node node) {
+        node.handleWakeup();
+    }
+}
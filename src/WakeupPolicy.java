@@ -0,0 +1,56 @@
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * When the nodes of a run wake up spontaneously: "all" wakes every node at
+ * once, "single[:<id>]" wakes one node (vertex 1 by default) whose Connect
+ * wakes the others as GHS spreads, which only reaches its own component,
+ * "staggered:<ms>" wakes them in id order evenly spread over the window,
+ * and "random:<ms>" at uniformly random times within the window.
+ */
+public final class WakeupPolicy {
+    public enum Kind { ALL, SINGLE, STAGGERED, RANDOM }
+
+    public static final WakeupPolicy ALL = new WakeupPolicy(Kind.ALL, 0);
+
+    private final Kind kind;
+    private final long parameter; // the initiator for SINGLE, the window in ms otherwise
+
+    public WakeupPolicy(Kind kind, long parameter) {
+        this.kind = kind;
+        this.parameter = parameter;
+    }
+
+    public static WakeupPolicy parse(String spec) {
+        String[] parts = spec.split(":");
+        Kind kind = Kind.valueOf(parts[0].toUpperCase(Locale.ROOT));
+        long parameter = parts.length > 1 ? Long.parseLong(parts[1]) : kind == Kind.SINGLE ? 1 : 1000;
+        return new WakeupPolicy(kind, parameter);
+    }
+
+    // Milliseconds until the node wakes up by itself, or -1 if only a message wakes it
+    public long delayOf(int id, int vertexCount, Random random) {
+        switch (kind) {
+            case ALL:
+                return 0;
+            case SINGLE:
+                return id == parameter ? 0 : -1;
+            case STAGGERED:
+                return (id - 1) * parameter / Math.max(1, vertexCount);
+            default:
+                return (long) (random.nextDouble() * parameter);
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case ALL:
+                return "all";
+            case SINGLE:
+                return "single:" + parameter;
+            default:
+                return kind.name().toLowerCase(Locale.ROOT) + ":" + parameter;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Watches the nodes of this JVM for a stall: when none of them has handled
+ * a message for a whole interval, it prints the state and the waiting
+ * messages of every node, once per stall.
+ */
+public final class Watchdog implements Runnable {
+    private final List<Node> nodes;
+    private final long intervalMillis;
+    private final PrintStream out;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    public Watchdog(List<Node> nodes, long intervalMillis, PrintStream out) {
+        this.nodes = nodes;
+        this.intervalMillis = intervalMillis;
+        this.out = out;
+        this.thread = new Thread(this, "watchdog");
+        this.thread.setDaemon(true);
+    }
+
+    public Watchdog start() {
+        thread.start();
+        return this;
+    }
+
+    @Override
+    public void run() {
+        long last = -1;
+        boolean reported = false;
+        while (running) {
+            try {
+                Thread.sleep(intervalMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+            long handled = handled();
+            if (handled != last) {
+                last = handled;
+                reported = false;
+            } else if (running && !reported) {
+                reported = true;
+                dump(handled);
+            }
+        }
+    }
+
+    private long handled() {
+        long total = 0;
+        for (Node node : nodes) {
+            total += node.handled();
+        }
+        return total;
+    }
+
+    private void dump(long handled) {
+        StringBuilder dump = new StringBuilder("No progress for " + intervalMillis + " ms after " + handled + " messages:");
+        for (Node node : nodes) {
+            dump.append(System.lineSeparator()).append("  ").append(node.status());
+        }
+        out.println(dump);
+        out.flush();
+    }
+
+    public void stop() {
+        running = false;
+        thread.interrupt();
+    }
+}
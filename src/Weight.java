@@ -1,35 +1,58 @@
 import java.io.Serializable;
+import java.nio.ByteBuffer;
 
-public class Weight implements Serializable, Comparable<Weight> {
-    private final Integer weight;
-    private final Integer lowerId;
-    private final Integer higherId;
+/**
+ * Weight of an edge, made unique by the ids of its endpoints. The triple
+ * (weight, lowerId, higherId) is packed into two longs whose signed order
+ * is the order of the triple, so comparing weights never unboxes or
+ * allocates.
+ */
+public final class Weight implements Serializable, Comparable<Weight> {
+    public static final int BYTES = 3 * Integer.BYTES; // size of the wire form
+
+    private final long high; // the weight itself
+    private final long low;  // lowerId in the upper half, higherId (sign flipped) in the lower half
 
     public static final Weight INFINITE = new Weight(Integer.MAX_VALUE, -1, -1);
 
     public Weight(int w, int low, int high) {
-        this.weight = w;
-        this.lowerId = low;
-        this.higherId = high;
+        this.high = w;
+        this.low = ((long) low << 32) | ((high ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
     }
 
     public Weight(Weight weight) {
-        this.weight = weight.weight;
-        this.lowerId = weight.lowerId;
-        this.higherId = weight.higherId;
+        this.high = weight.high;
+        this.low = weight.low;
+    }
+
+    public int getWeight() {
+        return (int) high;
+    }
+
+    public int getLowerId() {
+        return (int) (low >> 32);
+    }
+
+    public int getHigherId() {
+        return (int) low ^ Integer.MIN_VALUE;
     }
 
     @Override
     public int compareTo(Weight w) {
         if(w == null) {
             throw new NullPointerException("Compared weight is null.");
-        } else if (!weight.equals(w.weight)) {
-            return weight.compareTo(w.weight);
-        } else if (!lowerId.equals(w.lowerId)) {
-            return lowerId.compareTo(w.lowerId);
+        } else if (high != w.high) {
+            return high < w.high ? -1 : 1;
         }
-        return higherId.compareTo(w.higherId);
+        return Long.compare(low, w.low);
+    }
+
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(getWeight()).putInt(getLowerId()).putInt(getHigherId());
+    }
 
+    public static Weight readFrom(ByteBuffer buffer) {
+        return new Weight(buffer.getInt(), buffer.getInt(), buffer.getInt());
     }
 
     @Override
@@ -37,19 +60,17 @@ public class Weight implements Serializable, Comparable<Weight> {
         if(other == null) {
             return false;
         } else if (other instanceof Weight) {
-            return weight.equals(((Weight) other).weight) &&
-                    lowerId.equals(((Weight) other).lowerId) &&
-                    higherId.equals(((Weight) other).higherId);
+            return high == ((Weight) other).high && low == ((Weight) other).low;
         }
         return false;
     }
 
     @Override
     public String toString() {
-        return "[" + this.weight + "," + this.lowerId + "," + this.higherId + "]";
+        return "[" + getWeight() + "," + getLowerId() + "," + getHigherId() + "]";
     }
 
     public int hashCode() {
-        return lowerId.hashCode() + higherId.hashCode() + weight.hashCode();
+        return getLowerId() + getHigherId() + getWeight();
     }
 }
@@ -0,0 +1,43 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+
+import org.junit.jupiter.api.Test;
+
+class ColumnarEngineTest {
+
+    @Test
+    void isolatedLastVertexStaysItsOwnFragment() throws IOException {
+        Graph graph = TestGraphs.load("3\n1 2 5\n2 1 5\n");
+        ColumnarEngine engine = new ColumnarEngine(graph);
+        assertTrue(engine.run());
+        assertEquals(MstSolver.kruskal(graph), engine.mst(graph));
+        assertEquals(1, engine.mst(graph).edgeCount());
+    }
+
+    // Vertex 2 has no slots, so offsets[2] is the first slot of vertex 3
+    @Test
+    void isolatedVertexLeavesTheNextVertexsEdgesAlone() throws IOException {
+        Graph graph = TestGraphs.load("3\n1 3 5\n3 1 5\n");
+        ColumnarEngine engine = new ColumnarEngine(graph);
+        assertTrue(engine.run());
+        assertEquals(MstSolver.kruskal(graph), engine.mst(graph));
+    }
+
+    @Test
+    void graphWithoutEdgesHalts() throws IOException {
+        Graph graph = TestGraphs.load("2\n");
+        ColumnarEngine engine = new ColumnarEngine(graph);
+        assertTrue(engine.run());
+        assertEquals(0, engine.mst(graph).edgeCount());
+    }
+
+    @Test
+    void matchesKruskalOnAGeneratedGraph() {
+        Graph graph = GraphGenerator.generate("gnm", 500, 2000, 7, false);
+        ColumnarEngine engine = new ColumnarEngine(graph);
+        assertTrue(engine.run());
+        assertEquals(MstSolver.kruskal(graph), engine.mst(graph));
+    }
+}
@@ -0,0 +1,42 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.rmi.AlreadyBoundException;
+
+import org.junit.jupiter.api.Test;
+
+class NodeTest {
+
+    @Test
+    void isolatedVertexWakesUpWithoutAnEdge() throws IOException, AlreadyBoundException {
+        Graph graph = TestGraphs.load("3\n1 2 5\n2 1 5\n");
+        MstResult result = simulate(graph);
+        assertTrue(result.isComplete());
+        assertEquals(MstSolver.kruskal(graph), result.forest());
+    }
+
+    @Test
+    void isolatedVertexBetweenOthers() throws IOException, AlreadyBoundException {
+        Graph graph = TestGraphs.load("4\n1 3 5\n3 1 5\n3 4 2\n4 3 2\n");
+        MstResult result = simulate(graph);
+        assertTrue(result.isComplete());
+        assertEquals(MstSolver.kruskal(graph), result.forest());
+    }
+
+    @Test
+    void matchesKruskalOnAGeneratedGraph() throws IOException, AlreadyBoundException {
+        Graph graph = GraphGenerator.generate("gnm", 300, 1200, 3, false);
+        MstResult result = simulate(graph);
+        assertTrue(result.isComplete());
+        assertEquals(MstSolver.kruskal(graph), result.forest());
+    }
+
+    private static MstResult simulate(Graph graph) throws IOException, AlreadyBoundException {
+        Simulation simulation = new Simulation(1, 50);
+        GhsEngine engine = new GhsEngine(graph, simulation, id -> true);
+        simulation.run(WakeupPolicy.ALL);
+        engine.close();
+        return engine.result();
+    }
+}
@@ -0,0 +1,23 @@
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+/**
+ * Small graphs for the tests, written in the input format and read back
+ * through GraphLoader like a real input file.
+ */
+final class TestGraphs {
+    private TestGraphs() {
+    }
+
+    static Graph load(String text) throws IOException {
+        File file = File.createTempFile("graph-", ".txt");
+        try {
+            Files.write(file.toPath(), text.getBytes(StandardCharsets.US_ASCII));
+            return GraphLoader.load(file.getPath());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.rmi.AlreadyBoundException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+class UpdateDriverTest {
+    // Triangle 1-2-3, the bridge 3-4, and triangle 4-5-6
+    private static final String TWO_TRIANGLES = "6\n"
+            + "1 2 1\n2 1 1\n2 3 2\n3 2 2\n1 3 3\n3 1 3\n"
+            + "3 4 4\n4 3 4\n"
+            + "4 5 5\n5 4 5\n5 6 6\n6 5 6\n4 6 7\n6 4 7\n";
+
+    @Test
+    void bridgeDeletionSplitsTheTreeAndLaterUpdatesStillRepair()
+            throws IOException, AlreadyBoundException, InterruptedException {
+        Graph graph = TestGraphs.load(TWO_TRIANGLES);
+        List<EdgeUpdate> updates = Arrays.asList(
+                new EdgeUpdate(EdgeUpdate.Kind.DELETE, 3, 4, 0),
+                new EdgeUpdate(EdgeUpdate.Kind.DELETE, 1, 2, 0),
+                new EdgeUpdate(EdgeUpdate.Kind.DELETE, 4, 5, 0));
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger finished = new AtomicInteger();
+        GhsEngine ghs = new GhsEngine(graph, new DelayedTransport(new LocalTransport(), 5), id -> true);
+        UpdateDriver driver = new UpdateDriver(ghs.nodes(), updates, new DynamicMst(graph), () -> {
+            finished.incrementAndGet();
+            done.countDown();
+        });
+        for (Node node : ghs.nodes()) {
+            node.onQuiet(driver::quiet);
+        }
+        ghs.start(WakeupPolicy.ALL);
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        // Each side of the split halts its repair; both signals belong to one update
+        Thread.sleep(200);
+        assertEquals(1, finished.get());
+        ghs.close();
+
+        Graph current = driver.graph();
+        assertEquals(MstSolver.kruskal(current), mst(current, ghs.nodes()));
+        assertEquals(4, mst(current, ghs.nodes()).edgeCount()); // 2-3, 1-3, 5-6 and 4-6
+    }
+
+    private static SpanningForest mst(Graph graph, List<Node> nodes) {
+        int[] from = new int[2 * graph.edgeCount()];
+        int[] to = new int[from.length];
+        int count = 0;
+        for (Node node : nodes) {
+            for (int neighbor : node.mstNeighbors()) {
+                from[count] = node.getId();
+                to[count++] = neighbor;
+            }
+        }
+        return SpanningForest.ofEndpoints(graph, from, to, count);
+    }
+}